@@ -18,6 +18,48 @@
 // Time Complexity:
 // •The time complexity is O(n^2), where n is the length of the input arrays, as every pair of points is compared.
 
+// Fast Engine (findClosestPairFast):
+// 1.	Rotation: Map every point to u = x + y and v = x - y. The Manhattan distance |dx| + |dy| equals the Chebyshev distance
+// max(|du|, |dv|) in the rotated plane, so the classic strip argument works on boxes instead of diamonds.
+// 2.	Duplicates: Sorting by (u, v, index) puts equal points next to each other. If any point repeats, the answer has distance 0 and is the
+// smallest duplicate pair, so no further search is needed.
+// 3.	Divide and Conquer: Split the points sorted by u in half, solve both halves, then check the strip |u - midU| <= best in v order. Only
+// a constant number of neighbours in the strip can be within the best distance, so each level costs O(n).
+// 4.	Tie-break: Every candidate is compared on (distance, i, j), so the engine returns the same pair as the brute-force version.
+// The time complexity is O(n log n); the brute-force findClosestPair is kept as the reference oracle.
+// 5.	Parallel Mode: The u-sorted points are split into strips that are sorted and solved on a ForkJoinPool. Strips are joined with the same
+// strip check as the sequential version. The lexicographically smallest closest pair is unique, so the answer does not depend on the
+// number of workers.
+// 6.	Incremental Index: ClosestPairIndex groups equal points into sites and keeps the sites in an open-addressed hash grid over
+// (u, v). A duplicate insert only appends to its site, and sites with two or more points are kept in a heap by smallest index, which
+// gives the answer whenever one exists. Every site keeps its best partner within one cell size in a second heap. An insert of a new
+// site scans the 3x3 block of cells around it, and a remove rescans only the sites in its block that had it as partner. Cells that
+// cannot hold a closer site are skipped. The grid is rebuilt only when no pair is left within one cell size (the cells at least
+// double) or when an insert finds a crowded block (the cells halve).
+// 7.	Small Kernel: Inputs of up to 32 points skip the divide and conquer and run a scalar loop over the caller's x and y arrays.
+// Pairs are visited in lexicographic order, so a strictly smaller distance is the only update and the state stays in locals.
+// PackedPoints keeps points as separate x and y columns, loads and saves them as interleaved (x, y) files, and uses the same kernel
+// for small inputs and the fast engine for larger ones.
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntBinaryOperator;
 
 public class ClosestPair2b { 
 
@@ -45,6 +87,944 @@ public class ClosestPair2b {
         return result; // Return the result indices
     }
 
+    // Best pair found so far, ordered by distance first and then lexicographically by (i, j)
+    static final class Candidate {
+        long distance = Long.MAX_VALUE;
+        int i;
+        int j;
+
+        // Offer the pair (a, b); the pair is stored with the smaller index first
+        void offer(long d, int a, int b) {
+            if (a > b) { int t = a; a = b; b = t; }
+            if (d < distance || (d == distance && (a < i || (a == i && b < j)))) {
+                distance = d;
+                i = a;
+                j = b;
+            }
+        }
+
+        // Keep the better of this candidate and other
+        void merge(Candidate other) {
+            if (other.distance != Long.MAX_VALUE) {
+                offer(other.distance, other.i, other.j);
+            }
+        }
+    }
+
+    // Execution mode of the fast engine
+    public enum Mode { SEQUENTIAL, PARALLEL }
+
+    // Strips smaller than this are solved sequentially inside one fork-join task
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    // Inputs up to this size use the scalar brute-force kernel
+    static final int BRUTE_FORCE_THRESHOLD = 32;
+
+    // O(n log n) closest pair on the rotated coordinates, returns the same pair as findClosestPair
+    public static int[] findClosestPairFast(int[] x_coords, int[] y_coords) {
+        return findClosestPairFast(x_coords, y_coords, Mode.SEQUENTIAL, ForkJoinPool.commonPool());
+    }
+
+    // Same as findClosestPairFast, with PARALLEL mode running the strips on the given pool
+    public static int[] findClosestPairFast(int[] x_coords, int[] y_coords, Mode mode, ForkJoinPool pool) {
+        int n = x_coords.length;
+        if (n < 2) return new int[2]; // Same answer as the brute force for fewer than two points
+        if (n <= BRUTE_FORCE_THRESHOLD) return closestPairSmall(x_coords, y_coords, n);
+
+        // Rotate the coordinates; long avoids overflow of x + y and x - y
+        long[] u = new long[n];
+        long[] v = new long[n];
+        for (int i = 0; i < n; i++) {
+            u[i] = (long) x_coords[i] + y_coords[i];
+            v[i] = (long) x_coords[i] - y_coords[i];
+        }
+
+        // Sort the indices by (u, v, index)
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        int[] buffer = new int[n];
+        if (mode == Mode.PARALLEL) {
+            pool.invoke(new SortTask(order, buffer, 0, n, u, v));
+        } else {
+            sortByUV(order, buffer, 0, n, u, v);
+        }
+
+        // Equal points are adjacent now, a repeated point means the minimum distance is 0
+        Candidate duplicate = new Candidate();
+        for (int s = 0; s < n; ) {
+            int e = s + 1;
+            while (e < n && u[order[e]] == u[order[s]] && v[order[e]] == v[order[s]]) e++;
+            if (e - s > 1) duplicate.offer(0, order[s], order[s + 1]); // Sorted by index inside the run, so these are the two smallest
+            s = e;
+        }
+        if (duplicate.distance == 0) return new int[]{duplicate.i, duplicate.j};
+
+        Candidate best = mode == Mode.PARALLEL
+            ? pool.invoke(new StripTask(order, buffer, 0, n, u, v))
+            : closest(order, buffer, 0, n, u, v);
+        return new int[]{best.i, best.j};
+    }
+
+    // Brute force over the first n points with the same answer as findClosestPair. Pairs come in lexicographic order, so only a strictly
+    // smaller distance replaces the result
+    static int[] closestPairSmall(int[] x_coords, int[] y_coords, int n) {
+        long minDistance = Long.MAX_VALUE;
+        int first = 0, second = 0;
+        for (int i = 0; i < n - 1; i++) {
+            long xi = x_coords[i];
+            long yi = y_coords[i];
+            for (int j = i + 1; j < n; j++) {
+                long distance = Math.abs(xi - x_coords[j]) + Math.abs(yi - y_coords[j]);
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    first = i;
+                    second = j;
+                }
+            }
+        }
+        return new int[]{first, second};
+    }
+
+    // Solve order[lo, hi) which is sorted by u; on return the range is sorted by v instead
+    static Candidate closest(int[] order, int[] buffer, int lo, int hi, long[] u, long[] v) {
+        Candidate best = new Candidate();
+        if (hi - lo <= 3) {
+            // Small range: compare every pair, then sort by v for the caller
+            for (int a = lo; a < hi; a++) {
+                for (int b = a + 1; b < hi; b++) {
+                    best.offer(chebyshev(order[a], order[b], u, v), order[a], order[b]);
+                }
+            }
+            sortByV(order, lo, hi, v);
+            return best;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        long midU = u[order[mid]];
+        best = closest(order, buffer, lo, mid, u, v);
+        best.merge(closest(order, buffer, mid, hi, u, v));
+        mergeByV(order, buffer, lo, mid, hi, v);
+        stripCheck(order, buffer, lo, hi, midU, u, v, best);
+        return best;
+    }
+
+    // Compare the points near the dividing line, order[lo, hi) must be sorted by v
+    static void stripCheck(int[] order, int[] buffer, int lo, int hi, long midU, long[] u, long[] v, Candidate best) {
+        int size = 0;
+        for (int a = lo; a < hi; a++) {
+            if (Math.abs(u[order[a]] - midU) <= best.distance) {
+                buffer[lo + size++] = order[a];
+            }
+        }
+        for (int a = lo; a < lo + size; a++) {
+            // Points are distinct, so only a few of them fit in the best-distance box above buffer[a]
+            for (int b = a + 1; b < lo + size && v[buffer[b]] - v[buffer[a]] <= best.distance; b++) {
+                best.offer(chebyshev(buffer[a], buffer[b], u, v), buffer[a], buffer[b]);
+            }
+        }
+    }
+
+    // Manhattan distance of the original points = Chebyshev distance of the rotated points
+    static long chebyshev(int a, int b, long[] u, long[] v) {
+        return Math.max(Math.abs(u[a] - u[b]), Math.abs(v[a] - v[b]));
+    }
+
+    // Merge sort of order[lo, hi) by (u, v, index)
+    static void sortByUV(int[] order, int[] buffer, int lo, int hi, long[] u, long[] v) {
+        if (hi - lo < 2) return;
+        int mid = (lo + hi) >>> 1;
+        sortByUV(order, buffer, lo, mid, u, v);
+        sortByUV(order, buffer, mid, hi, u, v);
+        mergeByUV(order, buffer, lo, mid, hi, u, v);
+    }
+
+    // Merge two (u, v, index)-sorted halves order[lo, mid) and order[mid, hi)
+    static void mergeByUV(int[] order, int[] buffer, int lo, int mid, int hi, long[] u, long[] v) {
+        int a = lo, b = mid, k = lo;
+        while (a < mid && b < hi) {
+            int p = order[a], q = order[b];
+            boolean takeLeft = u[p] != u[q] ? u[p] < u[q] : v[p] != v[q] ? v[p] < v[q] : p < q;
+            buffer[k++] = takeLeft ? order[a++] : order[b++];
+        }
+        while (a < mid) buffer[k++] = order[a++];
+        while (b < hi) buffer[k++] = order[b++];
+        System.arraycopy(buffer, lo, order, lo, hi - lo);
+    }
+
+    // Merge two v-sorted halves order[lo, mid) and order[mid, hi)
+    static void mergeByV(int[] order, int[] buffer, int lo, int mid, int hi, long[] v) {
+        int a = lo, b = mid, k = lo;
+        while (a < mid && b < hi) {
+            buffer[k++] = v[order[a]] <= v[order[b]] ? order[a++] : order[b++];
+        }
+        while (a < mid) buffer[k++] = order[a++];
+        while (b < hi) buffer[k++] = order[b++];
+        System.arraycopy(buffer, lo, order, lo, hi - lo);
+    }
+
+    // Insertion sort by v for the small base case
+    static void sortByV(int[] order, int lo, int hi, long[] v) {
+        for (int a = lo + 1; a < hi; a++) {
+            int key = order[a];
+            int b = a - 1;
+            while (b >= lo && v[order[b]] > v[key]) {
+                order[b + 1] = order[b];
+                b--;
+            }
+            order[b + 1] = key;
+        }
+    }
+
+    // Parallel merge sort by (u, v, index), small ranges fall back to sortByUV
+    static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] order, buffer;
+        private final int lo, hi;
+        private final long[] u, v;
+
+        SortTask(int[] order, int[] buffer, int lo, int hi, long[] u, long[] v) {
+            this.order = order;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+            this.u = u;
+            this.v = v;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                sortByUV(order, buffer, lo, hi, u, v);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(order, buffer, lo, mid, u, v), new SortTask(order, buffer, mid, hi, u, v));
+            mergeByUV(order, buffer, lo, mid, hi, u, v);
+        }
+    }
+
+    // Solves one strip of the u-sorted points; the two halves run in parallel and are joined by the strip check
+    static final class StripTask extends RecursiveTask<Candidate> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] order, buffer;
+        private final int lo, hi;
+        private final long[] u, v;
+
+        StripTask(int[] order, int[] buffer, int lo, int hi, long[] u, long[] v) {
+            this.order = order;
+            this.buffer = buffer;
+            this.lo = lo;
+            this.hi = hi;
+            this.u = u;
+            this.v = v;
+        }
+
+        @Override
+        protected Candidate compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                return closest(order, buffer, lo, hi, u, v);
+            }
+            int mid = (lo + hi) >>> 1;
+            long midU = u[order[mid]];
+            StripTask left = new StripTask(order, buffer, lo, mid, u, v);
+            StripTask right = new StripTask(order, buffer, mid, hi, u, v);
+            left.fork();
+            Candidate best = right.compute();
+            best.merge(left.join());
+            // Candidates crossing the strip boundary
+            mergeByV(order, buffer, lo, mid, hi, v);
+            stripCheck(order, buffer, lo, hi, midU, u, v, best);
+            return best;
+        }
+    }
+
+    // Points stored as separate x and y columns; files hold interleaved big-endian (x, y) int pairs
+    public static final class PackedPoints {
+        private final int[] xs, ys;
+
+        private PackedPoints(int[] xs, int[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        // Copy two coordinate arrays
+        public static PackedPoints of(int[] x_coords, int[] y_coords) {
+            return new PackedPoints(x_coords.clone(), y_coords.clone());
+        }
+
+        // Load a file of big-endian (x, y) int pairs through a read-only memory mapping
+        public static PackedPoints load(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long bytes = channel.size();
+                if (bytes % 8 != 0 || bytes / 8 > Integer.MAX_VALUE) {
+                    throw new IOException("Not a packed point file: " + file + " has " + bytes + " bytes");
+                }
+                IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes).asIntBuffer();
+                int n = ints.remaining() / 2;
+                int[] xs = new int[n];
+                int[] ys = new int[n];
+                for (int i = 0; i < n; i++) {
+                    xs[i] = ints.get();
+                    ys[i] = ints.get();
+                }
+                return new PackedPoints(xs, ys);
+            }
+        }
+
+        // Write the points in the format read by load
+        public void save(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(xs.length * 8);
+                for (int i = 0; i < xs.length; i++) buffer.putInt(xs[i]).putInt(ys[i]);
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        }
+
+        public int size() {
+            return xs.length;
+        }
+
+        // Same answer as findClosestPair
+        public int[] closestPair() {
+            return findClosestPairFast(xs, ys);
+        }
+    }
+
+    // Closest-pair index for points that are inserted and removed over time. Indices are handed out in insertion order and are never
+    // reused, so closestPair() equals findClosestPair over the live points with their original indices.
+    public static final class ClosestPairIndex {
+        // Points by index, siteOf is -1 once a point is removed
+        private int[] xs = new int[16];
+        private int[] ys = new int[16];
+        private int[] siteOf = new int[16];
+        private int[] nextInSite = new int[16]; // Points of one site in index order, -1 ends the list
+        private int[] previousInSite = new int[16];
+        private int count; // Number of indices handed out
+        private int live;  // Number of points not removed
+
+        // A site is one distinct location with its live points, so duplicates never enter the grid twice
+        private int[] siteX = new int[16];
+        private int[] siteY = new int[16];
+        private int[] first = new int[16]; // Smallest and largest live index at the site
+        private int[] last = new int[16];
+        private int[] pointCount = new int[16];
+        private int[] nextInCell = new int[16]; // Sites of one cell, -1 ends the list
+        private int[] previousInCell = new int[16];
+        private int[] freeSites = new int[16];
+        private int siteCount; // Number of site ids handed out
+        private int freeCount;
+        private int liveSites;
+
+        // Site of each location, and the first site of each cell of the grid over the rotated coordinates
+        private final LongIntTable sitesByLocation = new LongIntTable();
+        private final LongIntTable cells = new LongIntTable();
+        // Only site pairs within cellSize are tracked; every such pair has both sites in each other's 3x3 block of cells
+        private long cellSize = 1;
+        static final int CROWDED_BLOCK = 64; // An insert that scans more sites than this may halve the cells
+        // Cell offsets of the 3x3 block, own cell first so the nearest candidates are seen early
+        private static final int[] BLOCK_U = {0, -1, -1, -1, 0, 0, 1, 1, 1};
+        private static final int[] BLOCK_V = {0, -1, 0, 1, -1, 1, -1, 0, 1};
+
+        // Best partner site within cellSize, or -1
+        private int[] partner = new int[16];
+        private long[] partnerDistance = new long[16];
+        // Sites with a partner by (distance, pair, site), and sites with two or more points by their smallest index
+        private final SiteHeap nearest = new SiteHeap(this::comparePartners);
+        private final SiteHeap duplicates = new SiteHeap((s, t) -> Integer.compare(first[s], first[t]));
+
+        // Add a point and return its index
+        public int insert(int x, int y) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                siteOf = Arrays.copyOf(siteOf, count * 2);
+                nextInSite = Arrays.copyOf(nextInSite, count * 2);
+                previousInSite = Arrays.copyOf(previousInSite, count * 2);
+            }
+            int p = count++;
+            xs[p] = x;
+            ys[p] = y;
+            nextInSite[p] = -1;
+            live++;
+
+            long location = ((long) x << 32) | (y & 0xFFFFFFFFL);
+            int s = sitesByLocation.get(location);
+            if (s >= 0) {
+                // A duplicate has the largest index, so it changes no pair of sites, only the site's own list
+                siteOf[p] = s;
+                previousInSite[p] = last[s];
+                nextInSite[last[s]] = p;
+                last[s] = p;
+                if (++pointCount[s] == 2) duplicates.add(s);
+                return p;
+            }
+            s = newSite(x, y, p);
+            sitesByLocation.put(location, s);
+            siteOf[p] = s;
+            previousInSite[p] = -1;
+
+            // The new site can become the best partner of its neighbours as well
+            int scanned = 0;
+            for (int c = 0; c < BLOCK_U.length; c++) {
+                for (int t = cellAround(s, BLOCK_U[c], BLOCK_V[c], cellSize); t >= 0; t = nextInCell[t]) {
+                    scanned++;
+                    long d = distance(s, t);
+                    if (d <= cellSize) {
+                        offerPartner(s, t, d);
+                        offerPartner(t, s, d);
+                    }
+                }
+            }
+            addToCell(s);
+
+            if (nearest.isEmpty()) {
+                if (liveSites >= 2) grow();
+            } else if (scanned > CROWDED_BLOCK && cellSize > 4 * Math.max(partnerDistance[nearest.first()], 1)) {
+                // Halve crowded cells; the best pair stays within the cell size, so it is still tracked
+                rebuild(cellSize / 2);
+            }
+            return p;
+        }
+
+        // Remove the point with the given index
+        public void remove(int index) {
+            if (index < 0 || index >= count || siteOf[index] < 0) {
+                throw new IllegalArgumentException("No live point with index " + index);
+            }
+            int s = siteOf[index];
+            siteOf[index] = -1;
+            live--;
+            int next = nextInSite[index];
+            int previous = previousInSite[index];
+            if (previous >= 0) nextInSite[previous] = next;
+            else first[s] = next;
+            if (next >= 0) previousInSite[next] = previous;
+            else last[s] = previous;
+            pointCount[s]--;
+            if (pointCount[s] == 1) duplicates.remove(s);
+            else if (pointCount[s] > 1 && previous < 0) duplicates.update(s);
+
+            if (pointCount[s] == 0) {
+                if (partner[s] >= 0) nearest.remove(s);
+                partner[s] = -1;
+                removeFromCell(s);
+                sitesByLocation.remove(((long) siteX[s] << 32) | (siteY[s] & 0xFFFFFFFFL));
+                liveSites--;
+                findPartnersOf(s);
+                freeSites[freeCount++] = s;
+            } else if (previous < 0) {
+                // A larger smallest index makes every pair of the site worse, ties may now go to other sites
+                if (partner[s] >= 0) nearest.remove(s);
+                partner[s] = -1;
+                findPartner(s);
+                findPartnersOf(s);
+            }
+            if (nearest.isEmpty() && liveSites >= 2) grow();
+        }
+
+        // Lexicographically smallest closest pair of the live points, or [0, 0] with fewer than two points
+        public int[] closestPair() {
+            if (!duplicates.isEmpty()) {
+                int p = first[duplicates.first()];
+                return new int[]{p, nextInSite[p]};
+            }
+            if (nearest.isEmpty()) return new int[2];
+            int s = nearest.first();
+            int p = first[s], q = first[partner[s]];
+            return new int[]{Math.min(p, q), Math.max(p, q)};
+        }
+
+        // Manhattan distance of the closest pair, or Long.MAX_VALUE with fewer than two points
+        public long closestDistance() {
+            if (!duplicates.isEmpty()) return 0;
+            return nearest.isEmpty() ? Long.MAX_VALUE : partnerDistance[nearest.first()];
+        }
+
+        public int size() {
+            return live;
+        }
+
+        // No pair is within cellSize any more: at least double the cells, so removals only rebuild O(log range) times in a row
+        private void grow() {
+            int[] ids = new int[liveSites];
+            int[] px = new int[liveSites];
+            int[] py = new int[liveSites];
+            for (int s = 0, k = 0; s < siteCount; s++) {
+                if (pointCount[s] > 0) {
+                    ids[k] = s;
+                    px[k] = siteX[s];
+                    py[k] = siteY[s];
+                    k++;
+                }
+            }
+            int[] pair = findClosestPairFast(px, py);
+            rebuild(Math.max(distance(ids[pair[0]], ids[pair[1]]), 2 * cellSize));
+        }
+
+        // Put every live site in a grid of the given cell size and find all best partners again
+        private void rebuild(long size) {
+            cellSize = size;
+            cells.clear();
+            nearest.clear();
+            for (int s = 0; s < siteCount; s++) {
+                if (pointCount[s] > 0) {
+                    partner[s] = -1;
+                    addToCell(s);
+                }
+            }
+            for (int s = 0; s < siteCount; s++) {
+                if (pointCount[s] > 0) findPartner(s);
+            }
+        }
+
+        // Scan the block of s, skipping cells that cannot hold a site as close as its current partner
+        private void findPartner(int s) {
+            for (int c = 0; c < BLOCK_U.length; c++) {
+                long limit = partner[s] >= 0 ? partnerDistance[s] : cellSize;
+                for (int t = cellAround(s, BLOCK_U[c], BLOCK_V[c], limit); t >= 0; t = nextInCell[t]) {
+                    long d = distance(s, t);
+                    if (t != s && d <= cellSize) offerPartner(s, t, d);
+                }
+            }
+        }
+
+        // Sites that had s as best partner are within cellSize, so they are all in its 3x3 block
+        private void findPartnersOf(int s) {
+            for (int c = 0; c < BLOCK_U.length; c++) {
+                for (int t = cellAround(s, BLOCK_U[c], BLOCK_V[c], cellSize); t >= 0; t = nextInCell[t]) {
+                    if (partner[t] == s) {
+                        nearest.remove(t);
+                        partner[t] = -1;
+                        findPartner(t);
+                    }
+                }
+            }
+        }
+
+        // Make t the partner of s if the pair (s, t) comes before s's current pair
+        private void offerPartner(int s, int t, long d) {
+            int r = partner[s];
+            if (r >= 0) {
+                if (d > partnerDistance[s] || (d == partnerDistance[s] && comparePairs(first[s], first[t], first[s], first[r]) > 0)) return;
+                nearest.remove(s);
+            }
+            partner[s] = t;
+            partnerDistance[s] = d;
+            nearest.add(s);
+        }
+
+        // The closest pair of two sites joins their smallest indices
+        private int comparePartners(int s, int t) {
+            if (partnerDistance[s] != partnerDistance[t]) return Long.compare(partnerDistance[s], partnerDistance[t]);
+            int c = comparePairs(first[s], first[partner[s]], first[t], first[partner[t]]);
+            return c != 0 ? c : Integer.compare(s, t); // Both ends of a pair may hold it
+        }
+
+        // Orders the pairs (a, b) and (c, d) lexicographically by (smaller index, larger index)
+        private static int comparePairs(int a, int b, int c, int d) {
+            int first = Integer.compare(Math.min(a, b), Math.min(c, d));
+            return first != 0 ? first : Integer.compare(Math.max(a, b), Math.max(c, d));
+        }
+
+        private long distance(int s, int t) {
+            return Math.abs((long) siteX[s] - siteX[t]) + Math.abs((long) siteY[s] - siteY[t]);
+        }
+
+        // First site of the cell (du, dv) away from site s, or -1 if the cell is empty or all of it is farther than limit
+        private int cellAround(int s, int du, int dv, long limit) {
+            long u = (long) siteX[s] + siteY[s];
+            long v = (long) siteX[s] - siteY[s];
+            long cu = Math.floorDiv(u, cellSize);
+            long cv = Math.floorDiv(v, cellSize);
+            long gap = Math.max(gap(u - cu * cellSize, du), gap(v - cv * cellSize, dv));
+            return gap > limit ? -1 : cells.get(cellKey(cu + du, cv + dv));
+        }
+
+        // Smallest coordinate difference to a neighbouring cell from an offset inside the own cell
+        private long gap(long offset, int d) {
+            return d < 0 ? offset + 1 : d > 0 ? cellSize - offset : 0;
+        }
+
+        private int newSite(int x, int y, int p) {
+            if (freeCount == 0 && siteCount == siteX.length) {
+                int size = siteCount * 2;
+                siteX = Arrays.copyOf(siteX, size);
+                siteY = Arrays.copyOf(siteY, size);
+                first = Arrays.copyOf(first, size);
+                last = Arrays.copyOf(last, size);
+                pointCount = Arrays.copyOf(pointCount, size);
+                nextInCell = Arrays.copyOf(nextInCell, size);
+                previousInCell = Arrays.copyOf(previousInCell, size);
+                freeSites = Arrays.copyOf(freeSites, size);
+                partner = Arrays.copyOf(partner, size);
+                partnerDistance = Arrays.copyOf(partnerDistance, size);
+            }
+            int s = freeCount > 0 ? freeSites[--freeCount] : siteCount++;
+            siteX[s] = x;
+            siteY[s] = y;
+            first[s] = p;
+            last[s] = p;
+            pointCount[s] = 1;
+            partner[s] = -1;
+            liveSites++;
+            return s;
+        }
+
+        private void addToCell(int s) {
+            long key = cellKey(s);
+            int head = cells.get(key);
+            nextInCell[s] = head;
+            previousInCell[s] = -1;
+            if (head >= 0) previousInCell[head] = s;
+            cells.put(key, s);
+        }
+
+        private void removeFromCell(int s) {
+            int next = nextInCell[s];
+            int previous = previousInCell[s];
+            if (next >= 0) previousInCell[next] = previous;
+            if (previous >= 0) nextInCell[previous] = next;
+            else if (next >= 0) cells.put(cellKey(s), next);
+            else cells.remove(cellKey(s));
+        }
+
+        private long cellKey(int s) {
+            long u = (long) siteX[s] + siteY[s];
+            long v = (long) siteX[s] - siteY[s];
+            return cellKey(Math.floorDiv(u, cellSize), Math.floorDiv(v, cellSize));
+        }
+
+        // Mixes both cell numbers; colliding cells share a list, which only costs extra distance checks
+        private static long cellKey(long cu, long cv) {
+            return cu * 0x9E3779B97F4A7C15L + cv;
+        }
+
+        // Map from long keys to non-negative ints, linear probing with backward-shift deletion
+        private static final class LongIntTable {
+            private long[] keys = new long[16];
+            private int[] values = new int[16]; // Value + 1, 0 is an empty slot
+            private int size;
+
+            int get(long key) {
+                int mask = keys.length - 1;
+                for (int at = home(key, mask); values[at] != 0; at = (at + 1) & mask) {
+                    if (keys[at] == key) return values[at] - 1;
+                }
+                return -1;
+            }
+
+            void put(long key, int value) {
+                if (2 * (size + 1) > keys.length) resize();
+                int mask = keys.length - 1;
+                int at = home(key, mask);
+                while (values[at] != 0 && keys[at] != key) at = (at + 1) & mask;
+                if (values[at] == 0) size++;
+                keys[at] = key;
+                values[at] = value + 1;
+            }
+
+            void remove(long key) {
+                int mask = keys.length - 1;
+                int hole = home(key, mask);
+                while (values[hole] != 0 && keys[hole] != key) hole = (hole + 1) & mask;
+                if (values[hole] == 0) return;
+                for (int at = (hole + 1) & mask; values[at] != 0; at = (at + 1) & mask) {
+                    if (((at - home(keys[at], mask)) & mask) >= ((at - hole) & mask)) {
+                        keys[hole] = keys[at];
+                        values[hole] = values[at];
+                        hole = at;
+                    }
+                }
+                values[hole] = 0;
+                size--;
+            }
+
+            void clear() {
+                Arrays.fill(values, 0);
+                size = 0;
+            }
+
+            private void resize() {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != 0) put(oldKeys[i], oldValues[i] - 1);
+                }
+            }
+
+            // MurmurHash3 finalizer, so nearby keys spread over the table
+            private static int home(long key, int mask) {
+                key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+                key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+                return (int) (key ^ (key >>> 33)) & mask;
+            }
+        }
+
+        // Binary min-heap of site ids that knows the position of each site, so any site can be removed or moved
+        private static final class SiteHeap {
+            private final IntBinaryOperator order;
+            private int[] heap = new int[16];
+            private int[] position = new int[16]; // -1 when the site is not in the heap
+            private int size;
+
+            SiteHeap(IntBinaryOperator order) {
+                this.order = order;
+                Arrays.fill(position, -1);
+            }
+
+            boolean isEmpty() {
+                return size == 0;
+            }
+
+            int first() {
+                return heap[0];
+            }
+
+            void add(int s) {
+                if (s >= position.length) {
+                    int length = position.length;
+                    position = Arrays.copyOf(position, Math.max(s + 1, length * 2));
+                    Arrays.fill(position, length, position.length, -1);
+                }
+                if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+                heap[size] = s;
+                position[s] = size;
+                siftUp(size++);
+            }
+
+            void remove(int s) {
+                int at = position[s];
+                position[s] = -1;
+                int moved = heap[--size];
+                if (at == size) return;
+                heap[at] = moved;
+                position[moved] = at;
+                update(moved);
+            }
+
+            // Restore the order after the key of s changed
+            void update(int s) {
+                siftDown(position[s]);
+                siftUp(position[s]);
+            }
+
+            void clear() {
+                for (int i = 0; i < size; i++) position[heap[i]] = -1;
+                size = 0;
+            }
+
+            private void siftUp(int at) {
+                int s = heap[at];
+                while (at > 0 && order.applyAsInt(s, heap[(at - 1) / 2]) < 0) {
+                    heap[at] = heap[(at - 1) / 2];
+                    position[heap[at]] = at;
+                    at = (at - 1) / 2;
+                }
+                heap[at] = s;
+                position[s] = at;
+            }
+
+            private void siftDown(int at) {
+                int s = heap[at];
+                while (2 * at + 1 < size) {
+                    int child = 2 * at + 1;
+                    if (child + 1 < size && order.applyAsInt(heap[child + 1], heap[child]) < 0) child++;
+                    if (order.applyAsInt(heap[child], s) >= 0) break;
+                    heap[at] = heap[child];
+                    position[heap[at]] = at;
+                    at = child;
+                }
+                heap[at] = s;
+                position[s] = at;
+            }
+        }
+    }
+
+    // Times inserts and removals on a ClosestPairIndex of n random points: repeatedly removing a point of the closest pair, then
+    // random points. The same is then timed for n points on only 25 distinct locations.
+    public static void indexBenchmark(int n, long seed) {
+        Random random = new Random(seed);
+        for (int locations : new int[]{0, 25}) {
+            ClosestPairIndex index = new ClosestPairIndex();
+            List<Integer> ids = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                int x = locations == 0 ? random.nextInt() : random.nextInt(5);
+                int y = locations == 0 ? random.nextInt() : random.nextInt(locations / 5);
+                ids.add(index.insert(x, y));
+            }
+            double insertUs = (System.nanoTime() - start) / 1e3 / n;
+            int removals = Math.min(1000, n / 4);
+            boolean[] removed = new boolean[n];
+
+            start = System.nanoTime();
+            for (int k = 0; k < removals; k++) {
+                int id = index.closestPair()[0];
+                index.remove(id);
+                removed[id] = true;
+            }
+            double closestUs = (System.nanoTime() - start) / 1e3 / removals;
+
+            Collections.shuffle(ids, random);
+            start = System.nanoTime();
+            int randomRemovals = 0;
+            for (int id : ids) {
+                if (randomRemovals == removals || index.size() <= 2) break;
+                if (!removed[id] && id != index.closestPair()[0]) {
+                    index.remove(id);
+                    removed[id] = true;
+                    randomRemovals++;
+                }
+            }
+            double randomUs = (System.nanoTime() - start) / 1e3 / randomRemovals;
+            System.out.printf("n = %d%s: insert %.1f us, removing a closest-pair point %.1f us, removing a random point %.1f us%n",
+                n, locations == 0 ? "" : " on " + locations + " locations", insertUs, closestUs, randomUs);
+        }
+    }
+
+    // Prints the parallel running time for 1, 2, 4, 8 and 16 workers and checks every answer is the same
+    public static void scalingReport(int n, long seed) {
+        Random random = new Random(seed);
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = random.nextInt();
+            ys[i] = random.nextInt();
+        }
+
+        long start = System.nanoTime();
+        int[] expected = findClosestPairFast(xs, ys);
+        double sequentialMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("n = %d, sequential: %.1f ms, pair %s%n", n, sequentialMs, Arrays.toString(expected));
+
+        double baseMs = 0;
+        for (int workers = 1; workers <= 16; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            findClosestPairFast(xs, ys, Mode.PARALLEL, pool); // Warm-up run
+            start = System.nanoTime();
+            int[] actual = findClosestPairFast(xs, ys, Mode.PARALLEL, pool);
+            double ms = (System.nanoTime() - start) / 1e6;
+            pool.shutdown();
+            if (workers == 1) baseMs = ms;
+            System.out.printf("workers = %2d: %8.1f ms, speedup %.2fx, same pair: %b%n",
+                workers, ms, baseMs / ms, Arrays.equals(expected, actual));
+        }
+    }
+
+    // Times findClosestPair against findClosestPairFast, which uses closestPairSmall up to BRUTE_FORCE_THRESHOLD points
+    public static void kernelBenchmark(long seed) {
+        Random random = new Random(seed);
+        for (int n : new int[]{16, 32, 256, 2000}) {
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextInt(1 << 20);
+                ys[i] = random.nextInt(1 << 20);
+            }
+            int calls = Math.max(50, 100_000_000 / (n * n));
+            double bruteUs = Double.MAX_VALUE, fastUs = Double.MAX_VALUE;
+            int check = 0;
+            for (int round = 0; round < 5; round++) { // Best of five rounds, the first ones warm up the JIT
+                long start = System.nanoTime();
+                for (int c = 0; c < calls; c++) check += findClosestPair(xs, ys)[1];
+                bruteUs = Math.min(bruteUs, (System.nanoTime() - start) / 1e3 / calls);
+                start = System.nanoTime();
+                for (int c = 0; c < calls; c++) check -= findClosestPairFast(xs, ys)[1];
+                fastUs = Math.min(fastUs, (System.nanoTime() - start) / 1e3 / calls);
+            }
+            System.out.printf("n = %4d: findClosestPair %9.2f us, findClosestPairFast %9.2f us, %.1fx, same pair: %b%n",
+                n, bruteUs, fastUs, bruteUs / fastUs, check == 0);
+        }
+    }
+
+    // Randomized differential test of findClosestPairFast against the brute-force findClosestPair
+    public static boolean differentialTest(int trials, long seed) {
+        Random random = new Random(seed);
+        for (int t = 0; t < trials; t++) {
+            int n = random.nextInt(200);
+            int range = 1 + random.nextInt(t % 2 == 0 ? 10 : 1000); // Small ranges force many ties and duplicates
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextInt(range) - range / 2;
+                ys[i] = random.nextInt(range) - range / 2;
+            }
+            int[] expected = findClosestPair(xs, ys);
+            int[] actual = findClosestPairFast(xs, ys);
+            int[] parallel = findClosestPairFast(xs, ys, Mode.PARALLEL, ForkJoinPool.commonPool());
+            if (!Arrays.equals(expected, actual) || !Arrays.equals(expected, parallel)) {
+                System.out.println("Mismatch for x=" + Arrays.toString(xs) + " y=" + Arrays.toString(ys)
+                    + ": expected " + Arrays.toString(expected) + " but got " + Arrays.toString(actual));
+                return false;
+            }
+        }
+
+        // Large inputs reach the fork-join strips, compare them with the sequential engine
+        for (int t = 0; t < 4; t++) {
+            int n = 4 * PARALLEL_THRESHOLD + random.nextInt(PARALLEL_THRESHOLD);
+            int range = t % 2 == 0 ? 200_000 : Integer.MAX_VALUE;
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = random.nextInt(range);
+                ys[i] = random.nextInt(range);
+            }
+            int[] expected = findClosestPairFast(xs, ys);
+            int[] parallel = findClosestPairFast(xs, ys, Mode.PARALLEL, ForkJoinPool.commonPool());
+            if (!Arrays.equals(expected, parallel)) {
+                System.out.println("Parallel mismatch for n=" + n + ": expected " + Arrays.toString(expected)
+                    + " but got " + Arrays.toString(parallel));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Random inserts and removes on ClosestPairIndex, checked against findClosestPair over the live points after every step
+    public static boolean indexDifferentialTest(int steps, int range, long seed) {
+        Random random = new Random(seed);
+        ClosestPairIndex index = new ClosestPairIndex();
+        List<Integer> liveIds = new ArrayList<>();
+        Map<Integer, int[]> points = new HashMap<>();
+        for (int step = 0; step < steps; step++) {
+            if (liveIds.isEmpty() || random.nextInt(3) > 0) {
+                int x = random.nextInt(range), y = random.nextInt(range);
+                int id = index.insert(x, y);
+                liveIds.add(id);
+                points.put(id, new int[]{x, y});
+            } else {
+                int id = liveIds.remove(random.nextInt(liveIds.size()));
+                index.remove(id);
+            }
+            if (step % 500 == 499) range *= 4; // Spread the points out so the grid has to resize
+
+            // liveIds is not sorted after removals, the batch method needs the points in index order
+            List<Integer> sorted = new ArrayList<>(liveIds);
+            sorted.sort(null);
+            int[] xs = new int[sorted.size()];
+            int[] ys = new int[sorted.size()];
+            for (int k = 0; k < sorted.size(); k++) {
+                xs[k] = points.get(sorted.get(k))[0];
+                ys[k] = points.get(sorted.get(k))[1];
+            }
+            int[] pair = findClosestPair(xs, ys);
+            int[] expected = sorted.size() < 2 ? new int[2] : new int[]{sorted.get(pair[0]), sorted.get(pair[1])};
+            if (!Arrays.equals(expected, index.closestPair())) {
+                System.out.println("Index mismatch at step " + step + ": expected " + Arrays.toString(expected)
+                    + " but got " + Arrays.toString(index.closestPair()));
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static void main(String[] args) {
         // Example input
         int[] x_coords = {1, 2, 3, 2, 4};
@@ -55,7 +1035,41 @@ public class ClosestPair2b {
 
         // Print the result
         System.out.println("The indices of the closest pair of points are: [" + result[0] + ", " + result[1] + "]");
+
+        // Check the fast engine against the brute-force oracle
+        System.out.println("Differential test passed: " + differentialTest(2000, 42));
+        System.out.println("Incremental index test passed: " + (indexDifferentialTest(2000, 50, 42)
+            && indexDifferentialTest(2000, 3, 43))); // Many duplicates at first
+
+        // Round trip through a packed point file
+        try {
+            Path file = Files.createTempFile("points", ".bin");
+            PackedPoints.of(x_coords, y_coords).save(file);
+            int[] packed = PackedPoints.load(file).closestPair();
+            Files.delete(file);
+            System.out.println("Packed file result: [" + packed[0] + ", " + packed[1] + "]");
+        } catch (IOException e) {
+            System.out.println("Could not use the packed point file: " + e.getMessage());
+        }
+
+        // Run with "--index <n>" to time removals from the incremental index
+        if (args.length == 2 && args[0].equals("--index")) {
+            indexBenchmark(Integer.parseInt(args[1]), 5);
+        }
+
+        // Run with "--kernel" to time the small-input kernel against the brute force
+        if (args.length == 1 && args[0].equals("--kernel")) {
+            kernelBenchmark(11);
+        }
+
+        // Run with "--scaling <n>" to print the parallel speedup report
+        if (args.length == 2 && args[0].equals("--scaling")) {
+            scalingReport(Integer.parseInt(args[1]), 7);
+        }
     }
 }
 //Output:
-//The indices of the closest pair of points are: [0, 3]
\ No newline at end of file
+//The indices of the closest pair of points are: [0, 3]
+//Differential test passed: true
+//Incremental index test passed: true
+//Packed file result: [0, 3]
\ No newline at end of file
@@ -20,19 +20,38 @@
 // 3) Minimizing Worst-Case Tests – We take the worst scenario at each step and minimize the number of tests required using dynamic programming.
 // 4) Final Result – The solution ensures the critical temperature is found with the least number of tests in all cases.
 
+// Faster Approach (minMeasurementFast)
+// Instead of asking how many tests n levels need, ask how many levels m tests can cover with k samples:
+//        cover(m, k) = cover(m-1, k-1) + cover(m-1, k) + 1
+// (one test, plus the levels below it if the sample reacts, plus the levels above it if it does not).
+// A single array of size k+1 is rolled forward one test at a time until cover(m, k) >= n, so the time is O(k·m) with m <= log2(n)+1
+// once k is large, and the memory is O(k). Values are capped at n so the long array cannot overflow.
 
+// Batch Queries (minMeasurements)
+// Many (k, n) queries share one coverage table: row k holds cover(m, k) for m = 0, 1, 2, ... and each query is a binary search for the
+// first m with cover(m, k) >= n. The table is kept between calls and only grows when a query needs a longer row. Values are capped at
+// Integer.MAX_VALUE, so even the longest row (k = 2, about 65,536 entries) keeps the whole table bounded.
 
+// Testing Plan (TestingPlan, walkPlan)
+// With k samples and m tests left, while f is known to lie in [low, high], test at low + cover(m-1, k-1) + 1. If the sample reacts, the
+// levels below are covered by k-1 samples and m-1 tests; if not, the levels above are covered by k samples and m-1 tests. Each step is
+// computed on demand in O(k), so a plan can be followed or walked without building the O(n) node tree.
+
+
+
+
+import java.util.Arrays;
 
  public class CriticalTemperature1a {
     public static int minMeasurement(int k , int n){//Given that k = sample of material and n=temperature level of mateial
         int [][] dp = new int[k+1][n+1];//int [][]is take for 2darray which stores elements of k and n and k+1  for rows and n+1  for column is taken to  handle base case
         
         //base case
-        for(int i = 0; i<k;i++){
+        for(int i = 0; i<=k;i++){
             dp[i][0]=0;//at o0 temperature levelthe material will not be measuired
         }
 
-        for(int j=0; j<n;j++){
+        for(int j=0; j<=n;j++){
             dp[1][j]=j;// if we have one sample than we have to measure or test the temperature level of material 1 to n linearly
 
         }
@@ -50,10 +69,255 @@
  
  }
 
+ // Minimum measurements using the coverage recurrence, O(k) memory instead of O(k·n)
+ public static int minMeasurementFast(int k, int n){
+    if (n <= 0) return 0; // no temperature levels, nothing to measure
+    if (k <= 0) throw new IllegalArgumentException("At least one sample is needed to test " + n + " temperature levels");
+    if (k == 1) return n;// one sample: test every level from the bottom, the loop below would take n rounds
+
+    // cover(m, k) >= 2^min(m,k) - 1, so more than 32 samples never helps for an int n
+    int samples = Math.min(k, 32);
+    long[] cover = new long[samples + 1];// cover[j] = levels that the current number of tests can resolve with j samples
+    int measurements = 0;
+    while (cover[samples] < n) {
+        measurements++;
+        // go from high j to low j so cover[j-1] still holds the value for one test less
+        for (int j = samples; j >= 1; j--) {
+            cover[j] = Math.min(n, cover[j] + cover[j - 1] + 1);// capped at n, the sum of three values <= n fits in a long
+        }
+    }
+    return measurements;
+ }
+
+ // Answer many (k, n) queries at once, queries[q] = {k, n} and the answers keep the order of the queries
+ public static int[] minMeasurements(int[][] queries){
+    int[] answers = new int[queries.length];
+    // sort the query positions by (k, n) so every row is grown once, to the largest n asked for it
+    Integer[] order = new Integer[queries.length];
+    for (int q = 0; q < queries.length; q++) order[q] = q;
+    Arrays.sort(order, (a, b) -> queries[a][0] != queries[b][0]
+        ? Integer.compare(queries[a][0], queries[b][0])
+        : Integer.compare(queries[a][1], queries[b][1]));
+
+    synchronized (TABLE) {
+        for (int p = queries.length - 1; p >= 0; p--) {
+            int q = order[p];
+            answers[q] = TABLE.minMeasurement(queries[q][0], queries[q][1]);
+        }
+    }
+    return answers;
+ }
+
+ // Shared coverage table kept between calls to minMeasurements
+ private static final CoverageTable TABLE = new CoverageTable();
+
+ // Drop the cached table, the next batch rebuilds the rows it needs
+ public static void clearCache(){
+    synchronized (TABLE) {
+        TABLE.clear();
+    }
+ }
+
+ // rows[k][m] = cover(m, k) capped at Integer.MAX_VALUE, for k = 1..32
+ static final class CoverageTable {
+    static final int MAX_SAMPLES = 32;// more samples never help for an int n
+    private long[][] rows = new long[MAX_SAMPLES + 1][];
+    private int[] lengths = new int[MAX_SAMPLES + 1];
+
+    int minMeasurement(int k, int n){
+        if (n <= 0) return 0;
+        if (k <= 0) throw new IllegalArgumentException("At least one sample is needed to test " + n + " temperature levels");
+        if (k == 1) return n;// one sample: test every level from the bottom, no table needed
+        int row = Math.min(k, MAX_SAMPLES);
+
+        // grow the row (doubling) until its last value covers n
+        while (lengths[row] == 0 || rows[row][lengths[row] - 1] < n) {
+            extend(row, Math.max(2 * lengths[row], 16));
+        }
+
+        // first m with cover(m, row) >= n
+        int lo = 0, hi = lengths[row] - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rows[row][mid] >= n) hi = mid; else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    // make row k hold at least length entries
+    private void extend(int k, int length){
+        if (lengths[k] >= length) return;
+        if (k > 1) extend(k - 1, length - 1);// cover(m, k) needs cover(m-1, k-1)
+        long[] values = rows[k] == null ? new long[length] : Arrays.copyOf(rows[k], length);
+        for (int m = Math.max(lengths[k], 1); m < length; m++) {
+            long below = k == 1 ? 0 : rows[k - 1][m - 1];
+            values[m] = Math.min(Integer.MAX_VALUE, below + values[m - 1] + 1);
+        }
+        rows[k] = values;
+        lengths[k] = length;
+    }
+
+    void clear(){
+        rows = new long[MAX_SAMPLES + 1][];
+        lengths = new int[MAX_SAMPLES + 1];
+    }
+ }
+
+ // cover(m, k) = C(m,1) + ... + C(m,k), stopping once it reaches cap
+ static long cover(int m, int k, long cap){
+    long total = 0;
+    long term = 1;// C(m, 0)
+    for (int i = 1; i <= Math.min(k, m) && total < cap; i++) {
+        term = term * (m - i + 1) / i;// term <= cap and m - i + 1 <= cap, so the product fits in a long
+        total += term;
+    }
+    return Math.min(total, cap);
+ }
+
+ // Step-by-step plan: ask for the next temperature, test it, record the outcome, repeat until resolved
+ public static final class TestingPlan {
+    private int samples;
+    private int testsLeft;
+    private int low;// f is known to be in [low, high]
+    private int high;
+    private int pending = -1;// temperature returned by nextTemperature and not yet recorded
+
+    public TestingPlan(int k, int n){
+        this.samples = k;
+        this.testsLeft = minMeasurementFast(k, n);
+        this.low = 0;
+        this.high = n;
+    }
+
+    public boolean isResolved(){
+        return low == high;
+    }
+
+    // Temperature to test next
+    public int nextTemperature(){
+        if (isResolved()) throw new IllegalStateException("Critical temperature is already known: " + low);
+        pending = nextTest(low, high, samples, testsLeft);
+        return pending;
+    }
+
+    // Outcome of the test at the temperature returned by nextTemperature
+    public void record(boolean reacted){
+        if (pending < 0) throw new IllegalStateException("Call nextTemperature before recording an outcome");
+        if (reacted) {
+            high = pending - 1;// f is below the tested level and the sample is used up
+            samples--;
+        } else {
+            low = pending;// f is at or above the tested level, the sample can be reused
+        }
+        testsLeft--;
+        pending = -1;
+    }
+
+    public int criticalTemperature(){
+        if (!isResolved()) throw new IllegalStateException("Critical temperature is somewhere in [" + low + ", " + high + "]");
+        return low;
+    }
+
+    public int samplesLeft(){
+        return samples;
+    }
+
+    public int testsLeft(){
+        return testsLeft;
+    }
+ }
+
+ // Level to test when f is in [low, high] with k samples and m tests left
+ static int nextTest(int low, int high, int k, int m){
+    long below = cover(m - 1, k - 1, high - low);// levels the reacted branch can still resolve
+    return (int) Math.min(high, low + below + 1);
+ }
+
+ // Receives the plan from walkPlan in depth-first order, the reacted branch before the unchanged branch
+ public interface PlanVisitor {
+    // A test at the given temperature while f is in [low, high]; return false to skip both branches below it
+    boolean test(int depth, int temperature, int samplesLeft, int low, int high);
+
+    // The plan has narrowed f down to one value
+    void resolved(int depth, int criticalTemperature);
+ }
+
+ // Walk the whole plan without recursion, only the pending branches (at most one per level) are kept
+ public static void walkPlan(int k, int n, PlanVisitor visitor){
+    int m = minMeasurementFast(k, n);
+    int[] stack = new int[4 * 16];// frames of {low, high, samples, depth}
+    int size = 0;
+    stack[size++] = 0; stack[size++] = n; stack[size++] = k; stack[size++] = 0;
+    while (size > 0) {
+        int depth = stack[--size], samples = stack[--size], high = stack[--size], low = stack[--size];
+        if (low == high) {
+            visitor.resolved(depth, low);
+            continue;
+        }
+        int t = nextTest(low, high, samples, m - depth);
+        if (!visitor.test(depth, t, samples, low, high)) continue;
+        if (size + 8 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+        // push the unchanged branch first so the reacted branch is visited first
+        stack[size++] = t; stack[size++] = high; stack[size++] = samples; stack[size++] = depth + 1;
+        stack[size++] = low; stack[size++] = t - 1; stack[size++] = samples - 1; stack[size++] = depth + 1;
+    }
+ }
+
  public static void main (String[] args){
     System.out.println("Minimum measurements (k=1, n=2):"+ minMeasurement(1, 2));
     System.out.println("Minimum measurements (k=1, n=2):"+ minMeasurement(2, 6));
     System.out.println("Minimum measurements (k=1, n=2):"+ minMeasurement(3, 14));
+
+    // coverage solver gives the same answers and also handles very large n
+    System.out.println("Fast solver (k=1, n=2):"+ minMeasurementFast(1, 2));
+    System.out.println("Fast solver (k=2, n=6):"+ minMeasurementFast(2, 6));
+    System.out.println("Fast solver (k=3, n=14):"+ minMeasurementFast(3, 14));
+    System.out.println("Fast solver (k=2, n=1000000000):"+ minMeasurementFast(2, 1000000000));
+    boolean same = true;
+    for (int k = 1; k <= 6; k++) {
+        for (int n = 0; n <= 200; n++) {
+            same &= minMeasurement(k, n) == minMeasurementFast(k, n);
+        }
+    }
+    System.out.println("Fast solver matches the DP table:"+ same);
+
+    // batch queries share one table
+    int[][] queries = {{3, 14}, {2, 6}, {1, 2}, {2, 1000000000}, {40, 1000000}, {3, 0}};
+    System.out.println("Batch answers:"+ Arrays.toString(minMeasurements(queries)));
+    int[][] grid = new int[40 * 300][];
+    for (int q = 0; q < grid.length; q++) grid[q] = new int[]{1 + q % 40, q * 997 % 100000};
+    int[] batch = minMeasurements(grid);
+    same = true;
+    for (int q = 0; q < grid.length; q++) same &= batch[q] == minMeasurementFast(grid[q][0], grid[q][1]);
+    System.out.println("Batch matches the fast solver:"+ same);
+
+    // follow the plan for k=2, n=6 when the critical temperature is 4
+    TestingPlan plan = new TestingPlan(2, 6);
+    StringBuilder steps = new StringBuilder();
+    while (!plan.isResolved()) {
+        int t = plan.nextTemperature();
+        boolean reacted = t > 4;
+        steps.append(t).append(reacted ? " reacts, " : " unchanged, ");
+        plan.record(reacted);
+    }
+    System.out.println("Plan (k=2, n=6, f=4):"+ steps + "f = " + plan.criticalTemperature());
+
+    // every branch of the plan must resolve to each f exactly once within the minimum number of tests
+    int[] seen = new int[15];
+    int[] deepest = new int[1];
+    walkPlan(3, 14, new PlanVisitor() {
+        public boolean test(int depth, int temperature, int samplesLeft, int low, int high) {
+            return true;
+        }
+
+        public void resolved(int depth, int criticalTemperature) {
+            seen[criticalTemperature]++;
+            deepest[0] = Math.max(deepest[0], depth);
+        }
+    });
+    boolean complete = deepest[0] == minMeasurementFast(3, 14);
+    for (int count : seen) complete &= count == 1;
+    System.out.println("Plan (k=3, n=14) resolves every f within 4 tests:"+ complete);
     
 
  }
@@ -61,6 +325,15 @@
         }
 
 /*Output */
-/*Minimum measurements (k=1, n=2):0
+/*Minimum measurements (k=1, n=2):2
 Minimum measurements (k=1, n=2):3
-Minimum measurements (k=1, n=2):4 */
\ No newline at end of file
+Minimum measurements (k=1, n=2):4
+Fast solver (k=1, n=2):2
+Fast solver (k=2, n=6):3
+Fast solver (k=3, n=14):4
+Fast solver (k=2, n=1000000000):44721
+Fast solver matches the DP table:true
+Batch answers:[4, 3, 2, 44721, 20, 0]
+Batch matches the fast solver:true
+Plan (k=2, n=6, f=4):3 unchanged, 5 reacts, 4 unchanged, f = 4
+Plan (k=3, n=14) resolves every f within 4 tests:true */
\ No newline at end of file
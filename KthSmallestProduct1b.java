@@ -21,8 +21,56 @@
 // of the heap. Since the heap will contain at most m * n products (where m and n are the sizes of returns1 and returns2), the overall complexity is 
 // O(klog(min(m,n))).
 
+// Binary Search on the Answer (kthSmallestProduct):
+// 1) Counting: For a value x, count the pairs with returns1[i] * returns2[j] <= x. Because returns2 is sorted, the matching j's form a
+// prefix of returns2 when returns1[i] > 0, a suffix when returns1[i] < 0, and all or nothing when returns1[i] == 0. Walking the positive
+// and the negative part of returns1 in the right direction makes the prefix/suffix boundary move only one way, so one count is
+// O(|returns1| + |returns2|).
+// 2) Search: The kth smallest product is the smallest x whose count is at least k. It lies between the smallest and largest corner
+// products, so the search takes O(log(range)) counts.
+// 3) Overflow: Products are computed as long, so values up to |2^31 * 2^31| are exact.
+// The heap version above stays as a reference for small k.
 
+// Corrected Heap (kthSmallestProductHeap):
+// findKthSmallestProduct assumes returns1[i] * returns2[0] is the smallest product of row i, which is only true when returns1[i] >= 0.
+// For a negative returns1[i] the row is smallest at the last element of returns2, so ProductIterator starts each row at the correct end
+// and walks towards the other one. The heap holds one entry per row in a long[] of products and an int[] of row numbers, and each row
+// remembers its current column, so taking the next product creates no objects.
+
+// Several Ranks at Once (kthSmallestProducts, productPercentiles, products):
+// All ranks run their binary searches side by side. Each round takes the middle of every unfinished search and counts all of them
+// in one sweep over returns1: for each a, every threshold moves its own pointer into returns2, and a threshold starts from where the
+// next smaller one stopped because its matching prefix is at least as long. So q ranks take O(log(range)) sweeps instead of
+// q * O(log(range)) separate counts. Each rank also tracks how many products lie in its [low, high]; once that is at most
+// max(1024, (|returns1| + |returns2|) / 8), the products in the range are collected row by row and sorted, which skips the last
+// rounds. For the full list of the k smallest products, products() returns a lazy LongStream backed by ProductIterator, so a
+// consumer can stop early.
+
+// Parallel Counting (kthSmallestProductParallel):
+// For very long return vectors the count dominates. returns1 is split into one range per worker on a ForkJoinPool, every worker runs
+// the same two-pointer count of its range against all of returns2, and the partial counts are added. Each worker finds its starting
+// pointer with a binary search, so the pointers together still move O(|returns2|) steps per sign. The vectors are read through
+// IntBuffers, so they can come from memory-mapped files of big-endian ints instead of Java arrays.
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 public class KthSmallestProduct1b { 
     public static int findKthSmallestProduct(int[] returns1, int[] returns2, int k) {
@@ -55,6 +103,540 @@ public class KthSmallestProduct1b {
         return result; // Return the kth smallest product
     }
 
+    // kth smallest product (1-based k) in O((|returns1| + |returns2|) log(range)) time, both arrays sorted ascending
+    public static long kthSmallestProduct(int[] returns1, int[] returns2, long k) {
+        int n = returns1.length, m = returns2.length;
+        if (k < 1 || k > (long) n * m) {
+            throw new IllegalArgumentException("k must be between 1 and " + ((long) n * m) + " but was " + k);
+        }
+
+        // The extremes of a product of two sorted arrays are among the four corner products
+        long[] corners = {
+            (long) returns1[0] * returns2[0], (long) returns1[0] * returns2[m - 1],
+            (long) returns1[n - 1] * returns2[0], (long) returns1[n - 1] * returns2[m - 1]
+        };
+        long low = Arrays.stream(corners).min().getAsLong();
+        long high = Arrays.stream(corners).max().getAsLong();
+
+        // Smallest x with at least k products <= x; high - low < 2^63 because products lie in [-2^62 + 2^31, 2^62]
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            if (countAtMost(returns1, returns2, mid) >= k) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // Answers for several 1-based ranks, in the order the ranks are given
+    public static long[] kthSmallestProducts(int[] returns1, int[] returns2, long... ranks) {
+        long total = (long) returns1.length * returns2.length;
+        for (long rank : ranks) {
+            if (rank < 1 || rank > total) throw new IllegalArgumentException("Rank must be between 1 and " + total + " but was " + rank);
+        }
+        int q = ranks.length;
+        long[] answers = new long[q];
+        if (q == 0) return answers;
+
+        int n = returns1.length, m = returns2.length;
+        long[] corners = {
+            (long) returns1[0] * returns2[0], (long) returns1[0] * returns2[m - 1],
+            (long) returns1[n - 1] * returns2[0], (long) returns1[n - 1] * returns2[m - 1]
+        };
+        long[] low = new long[q], high = new long[q];
+        Arrays.fill(low, Arrays.stream(corners).min().getAsLong());
+        Arrays.fill(high, Arrays.stream(corners).max().getAsLong());
+        long[] countBelow = new long[q];          // Products < low[r]
+        long[] countUpTo = new long[q];           // Products <= high[r]
+        Arrays.fill(countUpTo, total);
+        int selectLimit = Math.max(1024, (n + m) / 8);
+
+        // Every round counts the middle of each unfinished search, sorted by value, in one sweep
+        int[] pending = new int[q];
+        long[] thresholds = new long[q];
+        long[] counts = new long[q];
+        while (true) {
+            int size = 0;
+            for (int r = 0; r < q; r++) {
+                if (low[r] >= high[r]) continue;
+                if (countUpTo[r] - countBelow[r] <= selectLimit) {
+                    // Few products are left in [low, high], so pick the answer among them instead of more rounds
+                    long answer = selectInRange(returns1, returns2, low[r], high[r], ranks[r] - countBelow[r],
+                        (int) (countUpTo[r] - countBelow[r]));
+                    low[r] = high[r] = answer;
+                    continue;
+                }
+                long x = low[r] + (high[r] - low[r]) / 2;
+                int at = size++;
+                while (at > 0 && thresholds[at - 1] > x) { // Insertion sort by threshold, q is small
+                    thresholds[at] = thresholds[at - 1];
+                    pending[at] = pending[at - 1];
+                    at--;
+                }
+                thresholds[at] = x;
+                pending[at] = r;
+            }
+            if (size == 0) break;
+            countAtMost(returns1, returns2, thresholds, size, counts);
+            for (int t = 0; t < size; t++) {
+                int r = pending[t];
+                if (counts[t] >= ranks[r]) {
+                    high[r] = thresholds[t];
+                    countUpTo[r] = counts[t];
+                } else {
+                    low[r] = thresholds[t] + 1;
+                    countBelow[r] = counts[t];
+                }
+            }
+        }
+        System.arraycopy(low, 0, answers, 0, q);
+        return answers;
+    }
+
+    // Nearest-rank percentiles of all products, e.g. productPercentiles(a, b, 1, 5, 50, 95)
+    public static long[] productPercentiles(int[] returns1, int[] returns2, double... percentiles) {
+        long total = (long) returns1.length * returns2.length;
+        long[] ranks = new long[percentiles.length];
+        for (int q = 0; q < percentiles.length; q++) {
+            if (percentiles[q] < 0 || percentiles[q] > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100 but was " + percentiles[q]);
+            }
+            ranks[q] = Math.max(1, (long) Math.ceil(percentiles[q] / 100 * total));
+        }
+        return kthSmallestProducts(returns1, returns2, ranks);
+    }
+
+    // Every product in ascending order, computed lazily
+    public static LongStream products(int[] returns1, int[] returns2) {
+        long total = (long) returns1.length * returns2.length;
+        return StreamSupport.longStream(Spliterators.spliterator(new ProductIterator(returns1, returns2), total,
+            Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    // kth smallest product of two sorted vectors, counting in parallel on the pool
+    public static long kthSmallestProductParallel(IntBuffer returns1, IntBuffer returns2, long k, ForkJoinPool pool) {
+        int n = returns1.limit(), m = returns2.limit();
+        if (k < 1 || k > (long) n * m) {
+            throw new IllegalArgumentException("k must be between 1 and " + ((long) n * m) + " but was " + k);
+        }
+        long[] corners = {
+            (long) returns1.get(0) * returns2.get(0), (long) returns1.get(0) * returns2.get(m - 1),
+            (long) returns1.get(n - 1) * returns2.get(0), (long) returns1.get(n - 1) * returns2.get(m - 1)
+        };
+        long low = Arrays.stream(corners).min().getAsLong();
+        long high = Arrays.stream(corners).max().getAsLong();
+        int ranges = Math.min(n, pool.getParallelism() * 2); // A few ranges per worker evens out the sign split
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            if (pool.invoke(new CountTask(returns1, returns2, mid, 0, n, ranges)) >= k) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // Counts the pairs <= x for returns1[from, to), split into the given number of ranges
+    static final class CountTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntBuffer returns1, returns2;
+        private final long x;
+        private final int from, to, ranges;
+
+        CountTask(IntBuffer returns1, IntBuffer returns2, long x, int from, int to, int ranges) {
+            this.returns1 = returns1;
+            this.returns2 = returns2;
+            this.x = x;
+            this.from = from;
+            this.to = to;
+            this.ranges = ranges;
+        }
+
+        @Override
+        protected Long compute() {
+            if (ranges <= 1) return countAtMost(returns1, from, to, returns2, x);
+            int half = ranges / 2;
+            int mid = (int) (from + (long) (to - from) * half / ranges);
+            CountTask left = new CountTask(returns1, returns2, x, from, mid, half);
+            left.fork();
+            long right = new CountTask(returns1, returns2, x, mid, to, ranges - half).compute();
+            return left.join() + right;
+        }
+    }
+
+    // Number of pairs with returns1[i] * returns2[j] <= x for i in [from, to); same walk as countAtMost(int[], int[], long)
+    static long countAtMost(IntBuffer returns1, int from, int to, IntBuffer returns2, long x) {
+        int m = returns2.limit();
+        int negativeEnd = firstAtLeast(returns1, from, to, 0);
+        int positiveStart = firstAtLeast(returns1, negativeEnd, to, 1);
+        long count = 0;
+
+        if (x >= 0) count += (long) (positiveStart - negativeEnd) * m;
+
+        // Positive a: prefix returns2[0, j), starting from a binary search for the first a visited
+        int positives = to - positiveStart;
+        if (positives > 0 && m > 0) {
+            long first = returns1.get(x >= 0 ? to - 1 : positiveStart);
+            int lo = 0, hi = m;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (first * returns2.get(mid) <= x) lo = mid + 1; else hi = mid;
+            }
+            int j = lo;
+            for (int step = 0; step < positives; step++) {
+                long a = returns1.get(x >= 0 ? to - 1 - step : positiveStart + step);
+                while (j < m && a * returns2.get(j) <= x) j++;
+                count += j;
+            }
+        }
+
+        // Negative a: suffix returns2[p, m), starting from a binary search for the first a visited
+        int negatives = negativeEnd - from;
+        if (negatives > 0 && m > 0) {
+            long first = returns1.get(x >= 0 ? negativeEnd - 1 : from);
+            int lo = 0, hi = m;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (first * returns2.get(mid) > x) lo = mid + 1; else hi = mid;
+            }
+            int p = lo;
+            for (int step = 0; step < negatives; step++) {
+                long a = returns1.get(x >= 0 ? negativeEnd - 1 - step : from + step);
+                while (p < m && a * returns2.get(p) > x) p++;
+                count += m - p;
+            }
+        }
+        return count;
+    }
+
+    // First index in [from, to) whose value is >= bound, or to
+    private static int firstAtLeast(IntBuffer values, int from, int to, int bound) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values.get(mid) < bound) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // Maps a file of sorted big-endian ints; the buffer stays valid after the channel is closed
+    public static IntBuffer loadReturns(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % 4 != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Return file " + file + " must hold whole ints and be under 2 GB, it has " + size + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asIntBuffer();
+        }
+    }
+
+    // Time of one parallel search with 1, 2, 4, ... workers up to twice the number of cores
+    static void scalingReport(int length) {
+        Random random = new Random(3);
+        int[] a = new int[length];
+        int[] b = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = random.nextInt(2000001) - 1000000;
+            b[i] = random.nextInt(2000001) - 1000000;
+        }
+        Arrays.sort(a);
+        Arrays.sort(b);
+        long k = (long) length * length / 3;
+        long start = System.nanoTime();
+        long expected = kthSmallestProduct(a, b, k);
+        double sequentialMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("length = %d, k = %d: sequential %.1f ms%n", length, k, sequentialMs);
+        for (int workers = 1; workers <= Runtime.getRuntime().availableProcessors() * 2; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            start = System.nanoTime();
+            long answer = kthSmallestProductParallel(IntBuffer.wrap(a), IntBuffer.wrap(b), k, pool);
+            double ms = (System.nanoTime() - start) / 1e6;
+            pool.shutdown();
+            System.out.printf("workers = %2d: %8.1f ms, speedup %.2fx, same answer: %b%n", workers, ms, sequentialMs / ms, answer == expected);
+        }
+    }
+
+    // Number of pairs (i, j) with returns1[i] * returns2[j] <= x
+    static long countAtMost(int[] returns1, int[] returns2, long x) {
+        int n = returns1.length, m = returns2.length;
+        int negativeEnd = 0; // returns1[0, negativeEnd) < 0
+        while (negativeEnd < n && returns1[negativeEnd] < 0) negativeEnd++;
+        int positiveStart = negativeEnd; // returns1[positiveStart, n) > 0
+        while (positiveStart < n && returns1[positiveStart] == 0) positiveStart++;
+
+        long count = 0;
+
+        // Zeros: the product is 0 for every j
+        if (x >= 0) count += (long) (positiveStart - negativeEnd) * m;
+
+        // Positive a: the products grow with j, so the matches are the prefix returns2[0, j).
+        // The prefix shrinks as a grows when x >= 0 and grows when x < 0, so walk a in the order that makes it grow.
+        int j = 0;
+        for (int step = 0; step < n - positiveStart; step++) {
+            long a = returns1[x >= 0 ? n - 1 - step : positiveStart + step];
+            while (j < m && a * returns2[j] <= x) j++;
+            count += j;
+        }
+
+        // Negative a: the products shrink as j grows, so the matches are the suffix returns2[p, m).
+        // p moves right as a grows when x < 0 and as a shrinks when x >= 0.
+        int p = 0;
+        for (int step = 0; step < negativeEnd; step++) {
+            long a = returns1[x >= 0 ? negativeEnd - 1 - step : step];
+            while (p < m && a * returns2[p] > x) p++;
+            count += m - p;
+        }
+        return count;
+    }
+
+    // kth smallest (1-based) of the size products in [low, high]; each row's column range is found by galloping from the last one
+    private static long selectInRange(int[] returns1, int[] returns2, long low, long high, long k, int size) {
+        long[] values = new long[size];
+        int count = 0;
+        int from = 0, to = 0;
+        for (int value : returns1) {
+            long a = value;
+            if (a == 0) {
+                if (low <= 0 && 0 <= high) {
+                    Arrays.fill(values, count, count + returns2.length, 0);
+                    count += returns2.length;
+                }
+                continue;
+            }
+            // low <= a * b <= high as a range of b, which flips for negative a
+            long bMin = a > 0 ? -Math.floorDiv(-low, a) : -Math.floorDiv(-high, a);
+            long bMax = a > 0 ? Math.floorDiv(high, a) : Math.floorDiv(low, a);
+            from = gallop(returns2, bMin, from);
+            to = gallop(returns2, bMax + 1, to);
+            for (int j = from; j < to; j++) values[count++] = a * returns2[j];
+        }
+        Arrays.sort(values, 0, count);
+        return values[(int) k - 1];
+    }
+
+    // First index whose value is at least bound, searching outwards from hint
+    private static int gallop(int[] values, long bound, int hint) {
+        int m = values.length;
+        int lo, hi;
+        if (hint < m && values[hint] < bound) {
+            lo = hint + 1;
+            int step = 1;
+            hi = lo;
+            while (hi < m && values[hi] < bound) {
+                lo = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            hi = Math.min(hi, m);
+        } else {
+            hi = hint;
+            int step = 1;
+            lo = hi;
+            while (lo > 0 && values[lo - 1] >= bound) {
+                hi = lo - 1;
+                lo -= step;
+                step <<= 1;
+                lo = Math.max(lo, 0);
+            }
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < bound) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // countAtMost for the ascending thresholds xs[0, size), written to counts[0, size); a sweep per sign of a and of the thresholds
+    static void countAtMost(int[] returns1, int[] returns2, long[] xs, int size, long[] counts) {
+        int n = returns1.length, m = returns2.length;
+        int negativeEnd = 0;
+        while (negativeEnd < n && returns1[negativeEnd] < 0) negativeEnd++;
+        int positiveStart = negativeEnd;
+        while (positiveStart < n && returns1[positiveStart] == 0) positiveStart++;
+        int split = 0; // xs[0, split) < 0 <= xs[split, size)
+        while (split < size && xs[split] < 0) split++;
+
+        for (int t = 0; t < size; t++) counts[t] = t >= split ? (long) (positiveStart - negativeEnd) * m : 0;
+        // Positive a: negative thresholds walk a upwards, the others downwards, as in the single count
+        countPrefixes(returns1, positiveStart, n, 1, returns2, xs, 0, split, counts);
+        countPrefixes(returns1, n - 1, positiveStart - 1, -1, returns2, xs, split, size, counts);
+        // Negative a: negative thresholds walk a upwards from the most negative, the others downwards
+        countSuffixes(returns1, 0, negativeEnd, 1, returns2, xs, 0, split, counts);
+        countSuffixes(returns1, negativeEnd - 1, -1, -1, returns2, xs, split, size, counts);
+    }
+
+    // Positive a = returns1[from], ..., stepping by step until to: adds the prefix length of returns2 with a * b <= xs[t].
+    // Thresholds go in blocks of four kept in locals, and a larger threshold starts from the prefix of the next smaller one.
+    private static void countPrefixes(int[] returns1, int from, int to, int step, int[] returns2, long[] xs, int tFrom, int tTo,
+                                      long[] counts) {
+        int m = returns2.length;
+        for (int block = tFrom; block < tTo; block += 4) {
+            int last = Math.min(block + 4, tTo) - 1; // A short block repeats its last threshold
+            long x0 = xs[block], x1 = xs[Math.min(block + 1, last)], x2 = xs[Math.min(block + 2, last)], x3 = xs[last];
+            int j0 = 0, j1 = 0, j2 = 0, j3 = 0;
+            long c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+            for (int i = from; i != to; i += step) {
+                long a = returns1[i];
+                while (j0 < m && a * returns2[j0] <= x0) j0++;
+                j1 = Math.max(j1, j0);
+                while (j1 < m && a * returns2[j1] <= x1) j1++;
+                j2 = Math.max(j2, j1);
+                while (j2 < m && a * returns2[j2] <= x2) j2++;
+                j3 = Math.max(j3, j2);
+                while (j3 < m && a * returns2[j3] <= x3) j3++;
+                c0 += j0;
+                c1 += j1;
+                c2 += j2;
+                c3 += j3;
+            }
+            addBlock(counts, block, last, c0, c1, c2, c3);
+        }
+    }
+
+    // Negative a = returns1[from], ..., stepping by step until to: adds the suffix length of returns2 with a * b <= xs[t].
+    // A smaller threshold matches at most the suffix of the next larger one, so it starts from there.
+    private static void countSuffixes(int[] returns1, int from, int to, int step, int[] returns2, long[] xs, int tFrom, int tTo,
+                                      long[] counts) {
+        int m = returns2.length;
+        for (int block = tFrom; block < tTo; block += 4) {
+            int last = Math.min(block + 4, tTo) - 1;
+            long x0 = xs[block], x1 = xs[Math.min(block + 1, last)], x2 = xs[Math.min(block + 2, last)], x3 = xs[last];
+            int p0 = 0, p1 = 0, p2 = 0, p3 = 0;
+            long c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+            for (int i = from; i != to; i += step) {
+                long a = returns1[i];
+                while (p3 < m && a * returns2[p3] > x3) p3++;
+                p2 = Math.max(p2, p3);
+                while (p2 < m && a * returns2[p2] > x2) p2++;
+                p1 = Math.max(p1, p2);
+                while (p1 < m && a * returns2[p1] > x1) p1++;
+                p0 = Math.max(p0, p1);
+                while (p0 < m && a * returns2[p0] > x0) p0++;
+                c0 += m - p0;
+                c1 += m - p1;
+                c2 += m - p2;
+                c3 += m - p3;
+            }
+            addBlock(counts, block, last, c0, c1, c2, c3);
+        }
+    }
+
+    private static void addBlock(long[] counts, int block, int last, long c0, long c1, long c2, long c3) {
+        counts[block] += c0;
+        if (block + 1 <= last) counts[block + 1] += c1;
+        if (block + 2 <= last) counts[block + 2] += c2;
+        if (block + 3 <= last) counts[block + 3] += c3;
+    }
+
+    // kth smallest product with the corrected heap, O(|returns1| + k log |returns1|) time and no allocation per step
+    public static long kthSmallestProductHeap(int[] returns1, int[] returns2, long k) {
+        if (k < 1 || k > (long) returns1.length * returns2.length) {
+            throw new IllegalArgumentException("k must be between 1 and " + ((long) returns1.length * returns2.length) + " but was " + k);
+        }
+        ProductIterator products = new ProductIterator(returns1, returns2);
+        long result = 0;
+        while (k-- > 0) {
+            result = products.nextLong();
+        }
+        return result;
+    }
+
+    // All products in ascending order, merging one sorted row per element of returns1
+    static final class ProductIterator implements PrimitiveIterator.OfLong {
+        private final int[] returns1, returns2;
+        private final int[] column;   // Next column of each row
+        private final long[] heapValues;
+        private final int[] heapRows;
+        private int heapSize;
+
+        ProductIterator(int[] returns1, int[] returns2) {
+            this.returns1 = returns1;
+            this.returns2 = returns2;
+            int n = returns1.length, m = returns2.length;
+            this.column = new int[n];
+            this.heapValues = new long[n];
+            this.heapRows = new int[n];
+            if (m == 0) return;
+            for (int i = 0; i < n; i++) {
+                // A row is ascending from the left when returns1[i] >= 0 and from the right when it is negative
+                column[i] = returns1[i] >= 0 ? 0 : m - 1;
+                heapValues[heapSize] = (long) returns1[i] * returns2[column[i]];
+                heapRows[heapSize++] = i;
+            }
+            for (int slot = heapSize / 2 - 1; slot >= 0; slot--) siftDown(slot);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return heapSize > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (heapSize == 0) throw new NoSuchElementException();
+            long value = heapValues[0];
+            int row = heapRows[0];
+            int next = column[row] + (returns1[row] >= 0 ? 1 : -1);
+            if (next >= 0 && next < returns2.length) {
+                // Replace the top with the next product of the same row
+                column[row] = next;
+                heapValues[0] = (long) returns1[row] * returns2[next];
+            } else {
+                // Row finished, move the last entry to the top
+                heapSize--;
+                heapValues[0] = heapValues[heapSize];
+                heapRows[0] = heapRows[heapSize];
+            }
+            siftDown(0);
+            return value;
+        }
+
+        // Order by product, then by row so equal products always come out in the same order
+        private boolean less(int a, int b) {
+            return heapValues[a] != heapValues[b] ? heapValues[a] < heapValues[b] : heapRows[a] < heapRows[b];
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int smallest = slot;
+                int left = 2 * slot + 1, right = left + 1;
+                if (left < heapSize && less(left, smallest)) smallest = left;
+                if (right < heapSize && less(right, smallest)) smallest = right;
+                if (smallest == slot) return;
+                long value = heapValues[slot];
+                heapValues[slot] = heapValues[smallest];
+                heapValues[smallest] = value;
+                int row = heapRows[slot];
+                heapRows[slot] = heapRows[smallest];
+                heapRows[smallest] = row;
+                slot = smallest;
+            }
+        }
+    }
+
+    static volatile long sink;
+
+    // Bytes allocated by this thread per call of nextLong, measured over the given number of polls
+    static double allocatedBytesPerPoll(int[] returns1, int[] returns2, int polls) {
+        java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return Double.NaN; // Not measurable on this JVM
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        long thread = Thread.currentThread().getId();
+
+        ProductIterator products = new ProductIterator(returns1, returns2);
+        long checksum = 0;
+        for (int i = 0; i < polls / 2; i++) checksum += products.nextLong(); // Warm up so the JIT has compiled nextLong
+        long before = hotspot.getThreadAllocatedBytes(thread);
+        for (int i = polls / 2; i < polls; i++) checksum += products.nextLong();
+        long after = hotspot.getThreadAllocatedBytes(thread);
+        sink = checksum; // Keep the loop from being optimized away
+        return (double) (after - before) / (polls - polls / 2);
+    }
+
     public static void main(String[] args) {
         // Example test case 1
         int[] returns1 = {-4, -2, 0, 3}; // First sorted array
@@ -64,6 +646,125 @@ public class KthSmallestProduct1b {
         // Call the function and print the result
         System.out.println("The " + k + "th smallest investment return is: " + 
                             findKthSmallestProduct(returns1, returns2, k));
+        System.out.println("Binary search on the answer: " + kthSmallestProduct(returns1, returns2, k));
+
+        // Compare with every product sorted, and with the heap version where its seeding is valid (returns1 >= 0)
+        Random random = new Random(1);
+        boolean same = true;
+        for (int t = 0; t < 500; t++) {
+            int[] a = randomSorted(random, 1 + random.nextInt(8), t % 2 == 0 ? 0 : -6);
+            int[] b = randomSorted(random, 1 + random.nextInt(8), -6);
+            long[] products = new long[a.length * b.length];
+            for (int i = 0; i < a.length; i++) {
+                for (int j = 0; j < b.length; j++) products[i * b.length + j] = (long) a[i] * b[j];
+            }
+            Arrays.sort(products);
+            for (int rank = 1; rank <= products.length; rank++) {
+                same &= kthSmallestProduct(a, b, rank) == products[rank - 1];
+                if (t % 2 == 0) same &= findKthSmallestProduct(a, b, rank) == products[rank - 1];
+                same &= kthSmallestProductHeap(a, b, rank) == products[rank - 1];
+            }
+        }
+        System.out.println("Binary search matches the oracles: " + same);
+
+        // Large values: the int heap version would overflow here
+        int[] big = {-2000000000, -3, 1000000000, 2000000000};
+        System.out.println("Largest product of big returns: " + kthSmallestProduct(big, big, 16));
+
+        // The corrected heap handles the negative returns of the first example
+        System.out.println("Corrected heap, 1st smallest: " + kthSmallestProductHeap(returns1, returns2, 1)
+            + " (old heap: " + findKthSmallestProduct(returns1, returns2, 1) + ")");
+
+        // Several ranks and percentiles in one call, and the k smallest as a stream
+        System.out.println("Ranks 6, 1, 8, 3: " + Arrays.toString(kthSmallestProducts(returns1, returns2, 6, 1, 8, 3)));
+        System.out.println("Percentiles 1, 5, 50, 95: " + Arrays.toString(productPercentiles(returns1, returns2, 1, 5, 50, 95)));
+        System.out.println("Four smallest: " + Arrays.toString(products(returns1, returns2).limit(4).toArray()));
+        same = true;
+        for (int t = 0; t < 200; t++) {
+            int length = t % 2 == 0 ? 8 : 120; // Above 1024 products the sweeps run before the final selection
+            int[] a = randomSorted(random, 1 + random.nextInt(length), -6);
+            int[] b = randomSorted(random, 1 + random.nextInt(length), -6);
+            long[] ranks = new long[1 + random.nextInt(5)];
+            for (int q = 0; q < ranks.length; q++) ranks[q] = 1 + random.nextInt(a.length * b.length);
+            long[] answers = kthSmallestProducts(a, b, ranks);
+            long[] all = products(a, b).toArray();
+            for (int q = 0; q < ranks.length; q++) same &= answers[q] == all[(int) ranks[q] - 1];
+        }
+        System.out.println("Multi-rank answers match the product stream: " + same);
+
+        // Parallel count over buffers, from arrays and from a memory-mapped file
+        ForkJoinPool pool = new ForkJoinPool(4);
+        same = true;
+        for (int t = 0; t < 200; t++) {
+            int[] a = randomSorted(random, 1 + random.nextInt(30), -6);
+            int[] b = randomSorted(random, 1 + random.nextInt(30), -6);
+            long rank = 1 + random.nextInt(a.length * b.length);
+            same &= kthSmallestProductParallel(IntBuffer.wrap(a), IntBuffer.wrap(b), rank, pool) == kthSmallestProduct(a, b, rank);
+        }
+        try {
+            Path file = Files.createTempFile("returns", ".bin");
+            ByteBuffer bytes = ByteBuffer.allocate(returns1.length * 4);
+            bytes.asIntBuffer().put(returns1);
+            Files.write(file, bytes.array());
+            same &= kthSmallestProductParallel(loadReturns(file), IntBuffer.wrap(returns2), k, pool) == 0;
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Could not map the returns file: " + e.getMessage());
+        }
+        pool.shutdown();
+        System.out.println("Parallel count matches: " + same);
+
+        // Run with "--ranks <length>" to time four percentiles in one call against four separate searches
+        if (args.length == 2 && args[0].equals("--ranks")) {
+            ranksReport(Integer.parseInt(args[1]));
+        }
+
+        // Run with "--scaling <length>" to time the parallel count
+        if (args.length == 2 && args[0].equals("--scaling")) {
+            scalingReport(Integer.parseInt(args[1]));
+        }
+
+        // Allocation per poll once the iterator is built
+        int[] wide1 = new int[1000];
+        int[] wide2 = new int[1000];
+        for (int i = 0; i < 1000; i++) {
+            wide1[i] = i - 500;
+            wide2[i] = 3 * i - 1000;
+        }
+        System.out.printf("Bytes allocated per poll: %.3f%n", allocatedBytesPerPoll(wide1, wide2, 400000));
+    }
+
+    // Times the 1%, 5%, 50% and 95% ranks of two random vectors through kthSmallestProducts and as separate kthSmallestProduct calls
+    static void ranksReport(int length) {
+        Random random = new Random(18);
+        int[] a = new int[length], b = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = random.nextInt(2000001) - 1000000;
+            b[i] = random.nextInt(2000001) - 1000000;
+        }
+        Arrays.sort(a);
+        Arrays.sort(b);
+        long total = (long) length * length;
+        long[] ranks = {total / 100, total / 20, total / 2, total / 100 * 95};
+        kthSmallestProducts(a, b, ranks); // Warm-up
+
+        long start = System.nanoTime();
+        long[] together = kthSmallestProducts(a, b, ranks);
+        double togetherMs = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        long[] separate = new long[ranks.length];
+        for (int q = 0; q < ranks.length; q++) separate[q] = kthSmallestProduct(a, b, ranks[q]);
+        double separateMs = (System.nanoTime() - start) / 1e6;
+        System.out.printf("length %d: one sweep per round %.0f ms, separate searches %.0f ms, same answers: %b%n",
+            length, togetherMs, separateMs, Arrays.equals(together, separate));
+    }
+
+    // Sorted array of the given length with values in [min, min + 12]
+    static int[] randomSorted(Random random, int length, int min) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) values[i] = min + random.nextInt(13);
+        Arrays.sort(values);
+        return values;
     }
 }
 /*
@@ -98,4 +799,14 @@ Heap Processing:
 
 Output:
 The 6th smallest investment return is: 0
+Binary search on the answer: 0
+Binary search matches the oracles: true
+Largest product of big returns: 4000000000000000000
+Corrected heap, 1st smallest: -16 (old heap: -8)
+Ranks 6, 1, 8, 3: [0, -16, 12, -8]
+Percentiles 1, 5, 50, 95: [-16, -16, -4, 12]
+Four smallest: [-16, -8, -8, -4]
+Multi-rank answers match the product stream: true
+Parallel count matches: true
+Bytes allocated per poll: 0.000
 */
@@ -23,8 +23,61 @@
 // 4)Stop when all devices are connected: Once n edges are used (for n devices), the MST is complete, and the total cost is the minimum required to 
 // connect all devices.
 
+// Columnar Kruskal (minCostColumnar):
+// 1) Edge Store: The virtual module edges and the direct connections are kept in three int arrays (u, v, w) instead of one int[] per edge.
+// 2) Radix Sort: The edge numbers are sorted by weight with a stable 4-pass LSD radix sort on the weight bytes, so no Comparator or boxed
+// edge is involved and equal weights keep their input order, as with the List sort.
+// 3) Union: The sorted edge numbers are fed to the same UnionFind, so the main loop creates no objects. The cost is returned as a long,
+// together with the time spent loading, sorting and joining.
 
+// Packed Union-Find (PackedUnionFind):
+// parent[x] holds the parent of x, or -size when x is a root, so parent and size share one int array. find is a loop with path halving
+// (every visited node is pointed at its grandparent), so long chains cannot overflow the stack, and union by size keeps the trees
+// shallow. unionIfDisjoint finds both roots once and reports whether it joined them, so Kruskal does not call find twice per edge.
+
+// Parallel Boruvka (minCostParallel):
+// 1) Every round, each remaining edge offers itself as the cheapest edge of both of its components. The offers are packed as
+// (cost << 32 | edge number) in an AtomicLongArray and kept with an atomic min, so ties always go to the lower edge number.
+// 2) Each component then adds its cheapest edge through a compare-and-set Union-Find. Because of the consistent tie-break the chosen
+// edges never form a cycle; an edge chosen by both of its components is only counted once.
+// 3) Edges inside one component are dropped and the rounds repeat until nothing is joined. Every round at least halves the number of
+// components, so there are O(log n) rounds. The module edges are the same virtual edges to node 0 used by minCost, and the cost equals
+// the sequential answer because every minimum spanning tree has the same total cost.
+
+// Dynamic Network (DynamicNetwork):
+// The current minimum spanning tree is kept in a link-cut tree in which every edge is its own node, so the most expensive edge on the
+// tree path between two devices can be found in O(log n) amortized time.
+// 1) Adding a connection: if the most expensive edge on the path between its devices costs more, swap the two edges; otherwise the
+// new connection is not used.
+// 2) Removing a tree connection cuts the tree in two; the cheapest unused edge that joins the two parts again takes its place. Two
+// searches over the remaining tree edges run in turns from both ends of the cut, so only the smaller part is walked to collect the
+// candidate edges. Removing an unused connection is O(1).
+// 3) A module cost change is handled the same way: a cheaper unused module is treated like a new edge and a more expensive used one
+// like a removal. Every module edge stays in the graph, so node 0 keeps every device reachable.
+
+// External Memory (minCostExternal):
+// For connection lists that do not fit in memory the edges are read from a binary file of big-endian (device1, device2, cost) ints.
+// 1) Edges are streamed into chunks that fit the memory budget; each chunk, the module edges first, is radix sorted with the edge store
+// and written to a temporary run file.
+// 2) Runs are merged by cost through memory-mapped windows, at most as many at a time as the budget allows; when there are more runs
+// than that, groups are merged into longer runs first.
+// 3) The last merge feeds the edges straight into the Union-Find, so only the O(n) Union-Find and the module costs stay in memory.
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
 public class NetworkConnection3a {
 
@@ -67,6 +120,504 @@ public class NetworkConnection3a {
         }
     }
 
+    // Iterative Union-Find with path halving and union by size, parent[x] < 0 marks a root of size -parent[x]
+    static final class PackedUnionFind {
+        final int[] parent;
+
+        PackedUnionFind(int size) {
+            parent = new int[size];
+            Arrays.fill(parent, -1); // Every node is its own root of size 1
+        }
+
+        // Root of the set containing x, pointing every visited node at its grandparent on the way
+        int find(int x) {
+            while (parent[x] >= 0) {
+                int p = parent[x];
+                int grandparent = parent[p];
+                if (grandparent < 0) return p;
+                parent[x] = grandparent;
+                x = grandparent;
+            }
+            return x;
+        }
+
+        // Join the sets of x and y; false if they were already the same set
+        boolean unionIfDisjoint(int x, int y) {
+            int rootX = find(x);
+            int rootY = find(y);
+            if (rootX == rootY) return false;
+            if (parent[rootX] > parent[rootY]) { // rootX is the smaller set, hang it under rootY
+                int swap = rootX;
+                rootX = rootY;
+                rootY = swap;
+            }
+            parent[rootX] += parent[rootY];
+            parent[rootY] = rootX;
+            return true;
+        }
+
+        int size(int x) {
+            return -parent[find(x)];
+        }
+    }
+
+    // Union-Find that many threads can use at once: roots point to themselves and links are made with compare-and-set
+    static final class ConcurrentUnionFind {
+        final AtomicIntegerArray parent;
+
+        ConcurrentUnionFind(int size) {
+            parent = new AtomicIntegerArray(size);
+            for (int i = 0; i < size; i++) parent.set(i, i);
+        }
+
+        // Root of x with path halving; a failed halving CAS is harmless because another thread moved the node closer to the root
+        int find(int x) {
+            while (true) {
+                int p = parent.get(x);
+                if (p == x) return x;
+                int grandparent = parent.get(p);
+                if (p != grandparent) parent.compareAndSet(x, p, grandparent);
+                x = grandparent;
+            }
+        }
+
+        // Link the larger root number under the smaller one; retry if another thread changed a root in between
+        boolean unionIfDisjoint(int x, int y) {
+            while (true) {
+                int rootX = find(x);
+                int rootY = find(y);
+                if (rootX == rootY) return false;
+                if (rootX < rootY) {
+                    int swap = rootX;
+                    rootX = rootY;
+                    rootY = swap;
+                }
+                if (parent.compareAndSet(rootX, rootX, rootY)) return true;
+            }
+        }
+    }
+
+    // Minimum cost computed with parallel Boruvka rounds on the pool
+    public static long minCostParallel(int n, int[] modules, int[][] connections, ForkJoinPool pool) {
+        EdgeStore edges = EdgeStore.of(n, modules, connections);
+        try {
+            return pool.submit(() -> boruvka(n, edges)).get(); // Parallel streams started inside the pool run on its workers
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the minimum cost", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel minimum cost failed", e.getCause());
+        }
+    }
+
+    private static long boruvka(int n, EdgeStore edges) {
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(n + 1);
+        AtomicLongArray cheapest = new AtomicLongArray(n + 1);
+        int[] active = IntStream.range(0, edges.size).toArray();
+        long totalCost = 0;
+        while (active.length > 0) {
+            IntStream.range(0, n + 1).parallel().forEach(c -> cheapest.set(c, Long.MAX_VALUE));
+
+            // Every edge between two components offers itself to both; (cost, edge number) makes the order strict
+            IntStream.of(active).parallel().forEach(e -> {
+                int rootU = uf.find(edges.u[e]);
+                int rootV = uf.find(edges.v[e]);
+                if (rootU == rootV) return;
+                long offer = ((long) edges.w[e] << 32) | e;
+                cheapest.accumulateAndGet(rootU, offer, Math::min);
+                cheapest.accumulateAndGet(rootV, offer, Math::min);
+            });
+
+            // Every component adds its cheapest edge
+            long roundCost = IntStream.range(0, n + 1).parallel()
+                .filter(c -> cheapest.get(c) != Long.MAX_VALUE)
+                .mapToLong(c -> {
+                    int e = (int) cheapest.get(c); // Low 32 bits hold the edge number
+                    return uf.unionIfDisjoint(edges.u[e], edges.v[e]) ? edges.w[e] : 0;
+                })
+                .sum();
+            totalCost += roundCost;
+
+            // Keep only the edges that still join two components
+            int[] remaining = IntStream.of(active).parallel().filter(e -> uf.find(edges.u[e]) != uf.find(edges.v[e])).toArray();
+            if (remaining.length == active.length) break; // Nothing was joined, the rest of the graph is disconnected
+            active = remaining;
+        }
+        return totalCost;
+    }
+
+    // Prints the parallel time for 1, 2, 4, ... workers up to twice the number of cores
+    static void parallelReport(int devices, int connectionCount) {
+        Random random = new Random(29);
+        int[] modules = randomModules(random, devices, 1000000);
+        int[][] connections = randomConnections(random, devices, connectionCount, 1000000);
+        MstResult sequential = minCostColumnar(devices, modules, connections);
+        double sequentialMs = (sequential.loadNanos + sequential.sortNanos + sequential.unionNanos) / 1e6;
+        System.out.printf("devices = %d, connections = %d: sequential %.1f ms%n", devices, connectionCount, sequentialMs);
+        for (int workers = 1; workers <= Runtime.getRuntime().availableProcessors() * 2; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            long start = System.nanoTime();
+            long cost = minCostParallel(devices, modules, connections, pool);
+            double ms = (System.nanoTime() - start) / 1e6;
+            pool.shutdown();
+            System.out.printf("workers = %2d: %8.1f ms, speedup %.2fx, same cost: %b%n", workers, ms, sequentialMs / ms, cost == sequential.cost);
+        }
+    }
+
+    // Minimum cost that follows connection and module changes; edge ids 0..n-1 are the modules of devices 1..n
+    static final class DynamicNetwork {
+        private final int n;
+        private int[] edgeU, edgeV, edgeW;
+        private boolean[] inTree, alive;
+        private int edgeCount;
+        private long totalCost;
+
+        // Live edges per device as doubly linked lists of slots; slot 2 * id is the first end of edge id, 2 * id + 1 the second
+        private final int[] firstSlot;
+        private int[] nextSlot, prevSlot;
+        private final int[] mark;
+        private int stamp;
+        private final Side sideA, sideB;
+
+        // Link-cut tree over nodes 0..n (devices) and n + 1 + id (edges); -1 means no node
+        private int[] left, right, up, maxNode;
+        private long[] weight;
+        private boolean[] flipped;
+
+        DynamicNetwork(int n, int[] modules, int[][] connections) {
+            this.n = n;
+            firstSlot = new int[n + 1];
+            Arrays.fill(firstSlot, -1);
+            mark = new int[n + 1];
+            sideA = new Side();
+            sideB = new Side();
+            int edges = n + connections.length;
+            nextSlot = new int[2 * edges];
+            prevSlot = new int[2 * edges];
+            edgeU = new int[edges];
+            edgeV = new int[edges];
+            edgeW = new int[edges];
+            inTree = new boolean[edges];
+            alive = new boolean[edges];
+            growTree(n + 1 + edges);
+            for (int i = 0; i < n; i++) register(0, i + 1, modules[i]);
+            for (int[] connection : connections) register(connection[0], connection[1], connection[2]);
+
+            // Start from the Kruskal tree
+            EdgeStore store = new EdgeStore(edgeCount);
+            for (int e = 0; e < edgeCount; e++) store.add(edgeU[e], edgeV[e], edgeW[e]);
+            PackedUnionFind uf = new PackedUnionFind(n + 1);
+            for (int e : store.sortedByWeight()) {
+                if (uf.unionIfDisjoint(edgeU[e], edgeV[e])) {
+                    linkEdge(e);
+                    totalCost += edgeW[e];
+                }
+            }
+        }
+
+        long totalCost() {
+            return totalCost;
+        }
+
+        // Add a direct connection and return its id
+        int addConnection(int device1, int device2, int cost) {
+            int e = register(device1, device2, cost);
+            offer(e);
+            return e;
+        }
+
+        // Remove a direct connection added earlier or given at construction
+        void removeConnection(int id) {
+            if (id < n || id >= edgeCount || !alive[id]) throw new IllegalArgumentException("No connection with id " + id);
+            alive[id] = false;
+            if (edgeU[id] != edgeV[id]) unlinkSlots(id);
+            if (inTree[id]) {
+                cutEdge(id);
+                totalCost -= edgeW[id];
+                reconnect(edgeU[id], edgeV[id]);
+            }
+        }
+
+        // Change the module cost of a device (1..n)
+        void updateModuleCost(int device, int cost) {
+            if (device < 1 || device > n) throw new IllegalArgumentException("No device " + device);
+            int e = device - 1;
+            int old = edgeW[e];
+            if (!inTree[e]) {
+                setWeight(e, cost);
+                offer(e);
+            } else if (cost <= old) {
+                // Still the best choice for its place in the tree, only the stored weight changes
+                setWeight(e, cost);
+                totalCost += cost - old;
+            } else {
+                cutEdge(e);
+                totalCost -= old;
+                setWeight(e, cost);
+                reconnect(edgeU[e], edgeV[e]);
+            }
+        }
+
+        // Use edge e if it is cheaper than the most expensive edge on the tree path between its ends
+        private void offer(int e) {
+            int a = edgeU[e], b = edgeV[e];
+            if (a == b) return;
+            int heaviest = pathMax(a, b) - n - 1;
+            if (edgeW[heaviest] > edgeW[e]) {
+                cutEdge(heaviest);
+                totalCost -= edgeW[heaviest];
+                linkEdge(e);
+                totalCost += edgeW[e];
+            }
+        }
+
+        // After the tree edge between a and b was cut, add the cheapest unused edge that joins the two parts again
+        private void reconnect(int a, int b) {
+            stamp += 2;
+            sideA.start(a, stamp);
+            sideB.start(b, stamp + 1);
+            Side small;
+            while (true) {
+                if (!sideA.step()) { small = sideA; break; }
+                if (!sideB.step()) { small = sideB; break; }
+            }
+            int best = -1;
+            for (int i = 0; i < small.tail; i++) {
+                for (int slot = firstSlot[small.queue[i]]; slot >= 0; slot = nextSlot[slot]) {
+                    int e = slot >> 1;
+                    if (!inTree[e] && mark[end(slot ^ 1)] != small.stamp && (best < 0 || edgeW[e] < edgeW[best])) best = e;
+                }
+            }
+            if (best < 0) throw new IllegalStateException("No edge reconnects the network");
+            linkEdge(best);
+            totalCost += edgeW[best];
+        }
+
+        // Breadth-first search over tree edges that advances one adjacency slot per step
+        private final class Side {
+            final int[] queue = new int[n + 1];
+            int head, tail, slot, stamp;
+
+            void start(int device, int stamp) {
+                this.stamp = stamp;
+                head = 0;
+                tail = 0;
+                slot = -1;
+                mark[device] = stamp;
+                queue[tail++] = device;
+            }
+
+            // Returns false once the whole part has been visited
+            boolean step() {
+                while (slot < 0) {
+                    if (head == tail) return false;
+                    slot = firstSlot[queue[head++]];
+                }
+                int current = slot;
+                slot = nextSlot[current];
+                if (inTree[current >> 1]) {
+                    int other = end(current ^ 1);
+                    if (mark[other] != stamp) {
+                        mark[other] = stamp;
+                        queue[tail++] = other;
+                    }
+                }
+                return true;
+            }
+        }
+
+        private int end(int slot) {
+            return (slot & 1) == 0 ? edgeU[slot >> 1] : edgeV[slot >> 1];
+        }
+
+        private void linkSlots(int e) {
+            for (int slot = 2 * e; slot <= 2 * e + 1; slot++) {
+                int device = end(slot);
+                prevSlot[slot] = -1;
+                nextSlot[slot] = firstSlot[device];
+                if (firstSlot[device] >= 0) prevSlot[firstSlot[device]] = slot;
+                firstSlot[device] = slot;
+            }
+        }
+
+        private void unlinkSlots(int e) {
+            for (int slot = 2 * e; slot <= 2 * e + 1; slot++) {
+                if (prevSlot[slot] >= 0) nextSlot[prevSlot[slot]] = nextSlot[slot]; else firstSlot[end(slot)] = nextSlot[slot];
+                if (nextSlot[slot] >= 0) prevSlot[nextSlot[slot]] = prevSlot[slot];
+            }
+        }
+
+        private int register(int a, int b, int cost) {
+            if (a < 0 || a > n || b < 0 || b > n) throw new IllegalArgumentException("Devices must be between 1 and " + n);
+            if (edgeCount == edgeU.length) {
+                int capacity = edgeCount * 2 + 16;
+                edgeU = Arrays.copyOf(edgeU, capacity);
+                edgeV = Arrays.copyOf(edgeV, capacity);
+                edgeW = Arrays.copyOf(edgeW, capacity);
+                inTree = Arrays.copyOf(inTree, capacity);
+                alive = Arrays.copyOf(alive, capacity);
+                nextSlot = Arrays.copyOf(nextSlot, 2 * capacity);
+                prevSlot = Arrays.copyOf(prevSlot, 2 * capacity);
+                growTree(n + 1 + capacity);
+            }
+            int e = edgeCount++;
+            edgeU[e] = a;
+            edgeV[e] = b;
+            edgeW[e] = cost;
+            alive[e] = true;
+            int node = n + 1 + e;
+            left[node] = right[node] = up[node] = -1;
+            weight[node] = cost;
+            maxNode[node] = node;
+            if (a != b) linkSlots(e);
+            return e;
+        }
+
+        private void linkEdge(int e) {
+            int node = n + 1 + e;
+            link(edgeU[e], node);
+            link(node, edgeV[e]);
+            inTree[e] = true;
+        }
+
+        private void cutEdge(int e) {
+            int node = n + 1 + e;
+            cut(edgeU[e], node);
+            cut(node, edgeV[e]);
+            inTree[e] = false;
+        }
+
+        private void setWeight(int e, int cost) {
+            edgeW[e] = cost;
+            int node = n + 1 + e;
+            access(node);
+            splay(node);
+            weight[node] = cost;
+            update(node);
+        }
+
+        private void growTree(int size) {
+            int old = left == null ? 0 : left.length;
+            if (size <= old) return;
+            left = left == null ? new int[size] : Arrays.copyOf(left, size);
+            right = right == null ? new int[size] : Arrays.copyOf(right, size);
+            up = up == null ? new int[size] : Arrays.copyOf(up, size);
+            maxNode = maxNode == null ? new int[size] : Arrays.copyOf(maxNode, size);
+            weight = weight == null ? new long[size] : Arrays.copyOf(weight, size);
+            flipped = flipped == null ? new boolean[size] : Arrays.copyOf(flipped, size);
+            for (int x = old; x < size; x++) {
+                left[x] = right[x] = up[x] = -1;
+                maxNode[x] = x;
+                weight[x] = Long.MIN_VALUE; // Device nodes never win a path maximum
+            }
+        }
+
+        // --- Link-cut tree: splay trees over preferred paths, up[] is the splay parent or the path parent ---
+
+        private boolean isSplayRoot(int x) {
+            int p = up[x];
+            return p < 0 || (left[p] != x && right[p] != x);
+        }
+
+        private void update(int x) {
+            int best = x;
+            if (left[x] >= 0 && weight[maxNode[left[x]]] > weight[best]) best = maxNode[left[x]];
+            if (right[x] >= 0 && weight[maxNode[right[x]]] > weight[best]) best = maxNode[right[x]];
+            maxNode[x] = best;
+        }
+
+        private void pushFlip(int x) {
+            if (!flipped[x]) return;
+            int swap = left[x];
+            left[x] = right[x];
+            right[x] = swap;
+            if (left[x] >= 0) flipped[left[x]] ^= true;
+            if (right[x] >= 0) flipped[right[x]] ^= true;
+            flipped[x] = false;
+        }
+
+        private void rotate(int x) {
+            int p = up[x], g = up[p];
+            boolean pIsRoot = isSplayRoot(p);
+            if (left[p] == x) {
+                left[p] = right[x];
+                if (right[x] >= 0) up[right[x]] = p;
+                right[x] = p;
+            } else {
+                right[p] = left[x];
+                if (left[x] >= 0) up[left[x]] = p;
+                left[x] = p;
+            }
+            up[p] = x;
+            up[x] = g;
+            if (!pIsRoot) {
+                if (left[g] == p) left[g] = x; else right[g] = x;
+            }
+            update(p);
+            update(x);
+        }
+
+        private int[] splayPath = new int[64];
+
+        private void splay(int x) {
+            // Push pending flips from the splay root down to x first
+            int depth = 0;
+            for (int y = x; ; y = up[y]) {
+                if (depth == splayPath.length) splayPath = Arrays.copyOf(splayPath, depth * 2);
+                splayPath[depth++] = y;
+                if (isSplayRoot(y)) break;
+            }
+            while (depth > 0) pushFlip(splayPath[--depth]);
+
+            while (!isSplayRoot(x)) {
+                int p = up[x];
+                if (!isSplayRoot(p)) {
+                    int g = up[p];
+                    rotate((left[g] == p) == (left[p] == x) ? p : x); // Zig-zig rotates the parent first, zig-zag rotates x
+                }
+                rotate(x);
+            }
+        }
+
+        // Make the path from the tree root to x preferred, with x at its end
+        private void access(int x) {
+            int last = -1;
+            for (int y = x; y >= 0; y = up[y]) {
+                splay(y);
+                right[y] = last;
+                update(y);
+                last = y;
+            }
+            splay(x);
+        }
+
+        private void makeRoot(int x) {
+            access(x);
+            flipped[x] ^= true;
+        }
+
+        private void link(int x, int y) {
+            makeRoot(x);
+            up[x] = y;
+        }
+
+        private void cut(int x, int y) {
+            makeRoot(x);
+            access(y);
+            // x is now the only node left of y in y's splay tree
+            left[y] = -1;
+            up[x] = -1;
+            update(y);
+        }
+
+        // Node with the largest weight on the tree path between a and b
+        private int pathMax(int a, int b) {
+            makeRoot(a);
+            access(b);
+            return maxNode[b];
+        }
+    }
+
     // Method to find the minimum cost to connect all devices
     public static int minCost(int n, int[] modules, int[][] connections) {
         List<int[]> edges = new ArrayList<>();
@@ -85,7 +636,7 @@ public class NetworkConnection3a {
         edges.sort(Comparator.comparingInt(a -> a[2]));
 
         // Initialize Union-Find
-        UnionFind uf = new UnionFind(n + 1); // n + 1 because we have a "super node"
+        PackedUnionFind uf = new PackedUnionFind(n + 1); // n + 1 because we have a "super node"
 
         int totalCost = 0;
         int edgesUsed = 0;
@@ -97,8 +648,7 @@ public class NetworkConnection3a {
             int cost = edge[2];
 
             // If the two devices are in different components, union them
-            if (uf.find(device1) != uf.find(device2)) {
-                uf.union(device1, device2);
+            if (uf.unionIfDisjoint(device1, device2)) {
                 totalCost += cost;
                 edgesUsed++;
 
@@ -112,7 +662,380 @@ public class NetworkConnection3a {
         return totalCost;
     }
 
-    public static void main(String[] args) {
+    // Edges in three parallel int arrays: edge e joins u[e] and v[e] at cost w[e]
+    static final class EdgeStore {
+        int[] u, v, w;
+        int size;
+
+        EdgeStore(int capacity) {
+            u = new int[capacity];
+            v = new int[capacity];
+            w = new int[capacity];
+        }
+
+        void add(int from, int to, int cost) {
+            if (size == u.length) {
+                int capacity = Math.max(16, size * 2);
+                u = Arrays.copyOf(u, capacity);
+                v = Arrays.copyOf(v, capacity);
+                w = Arrays.copyOf(w, capacity);
+            }
+            u[size] = from;
+            v[size] = to;
+            w[size] = cost;
+            size++;
+        }
+
+        // Module edges (0, i + 1, modules[i]) followed by the direct connections, in the same order as minCost
+        static EdgeStore of(int n, int[] modules, int[][] connections) {
+            EdgeStore edges = new EdgeStore(n + connections.length);
+            for (int i = 0; i < n; i++) {
+                edges.add(0, i + 1, modules[i]);
+            }
+            for (int[] connection : connections) {
+                edges.add(connection[0], connection[1], connection[2]);
+            }
+            return edges;
+        }
+
+        // Edge numbers sorted by weight, stable, using a radix sort on the four weight bytes
+        int[] sortedByWeight() {
+            int[] order = new int[size];
+            int[] buffer = new int[size];
+            for (int e = 0; e < size; e++) order[e] = e;
+            if (size == 0) return order;
+            int[] counts = new int[257];
+            for (int shift = 0; shift < 32; shift += 8) {
+                Arrays.fill(counts, 0);
+                for (int e = 0; e < size; e++) {
+                    counts[digit(w[e], shift) + 1]++;
+                }
+                if (counts[digit(w[0], shift) + 1] == size) continue; // Every weight has the same byte here, nothing moves
+                for (int d = 0; d < 256; d++) counts[d + 1] += counts[d];
+                for (int k = 0; k < size; k++) {
+                    int e = order[k];
+                    buffer[counts[digit(w[e], shift)]++] = e;
+                }
+                int[] swap = order;
+                order = buffer;
+                buffer = swap;
+            }
+            return order;
+        }
+
+        // Byte of the weight at the shift, with the sign bit flipped so negative weights sort first
+        private static int digit(int weight, int shift) {
+            return ((weight ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+        }
+    }
+
+    // Cost of the minimum spanning tree and how long each phase took
+    static final class MstResult {
+        final long cost;
+        final long loadNanos, sortNanos, unionNanos;
+
+        MstResult(long cost, long loadNanos, long sortNanos, long unionNanos) {
+            this.cost = cost;
+            this.loadNanos = loadNanos;
+            this.sortNanos = sortNanos;
+            this.unionNanos = unionNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("cost %d (load %.1f ms, sort %.1f ms, union %.1f ms)",
+                cost, loadNanos / 1e6, sortNanos / 1e6, unionNanos / 1e6);
+        }
+    }
+
+    // Same answer as minCost, using the columnar edge store and a radix sort
+    public static MstResult minCostColumnar(int n, int[] modules, int[][] connections) {
+        long start = System.nanoTime();
+        EdgeStore edges = EdgeStore.of(n, modules, connections);
+        long loaded = System.nanoTime();
+        MstResult result = minCost(n, edges);
+        return new MstResult(result.cost, loaded - start, result.sortNanos, result.unionNanos);
+    }
+
+    // Kruskal over edges that are already in an edge store (node 0 is the super node)
+    static MstResult minCost(int n, EdgeStore edges) {
+        long start = System.nanoTime();
+        int[] order = edges.sortedByWeight();
+        long sorted = System.nanoTime();
+
+        PackedUnionFind uf = new PackedUnionFind(n + 1);
+        long totalCost = 0;
+        int edgesUsed = 0;
+        for (int k = 0; k < order.length && edgesUsed < n; k++) {
+            int e = order[k];
+            if (uf.unionIfDisjoint(edges.u[e], edges.v[e])) {
+                totalCost += edges.w[e];
+                edgesUsed++;
+            }
+        }
+        return new MstResult(totalCost, 0, sorted - start, System.nanoTime() - sorted);
+    }
+
+    static final int RECORD_BYTES = 12;                   // device1, device2, cost
+    static final int SORT_BYTES_PER_EDGE = 20;            // u, v, w and the two order arrays of EdgeStore.sortedByWeight
+    static final int WINDOW_BYTES = RECORD_BYTES << 16;   // Mapped bytes per run while merging, whole records only
+
+    // Receives edges in order of cost; returns false to stop early
+    interface EdgeSink {
+        boolean accept(int u, int v, int w) throws IOException;
+    }
+
+    // Writes (device1, device2, cost) records through a small direct buffer
+    static final class RunWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES << 12);
+
+        RunWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(int u, int v, int w) throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) flush();
+            buffer.putInt(u).putInt(v).putInt(w);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    // Reads a sorted run one record at a time through a moving memory-mapped window
+    static final class RunReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final long size;
+        private long position;
+        private MappedByteBuffer window;
+        int u, v, w;
+
+        RunReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        }
+
+        boolean next() throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                if (position == size) return false;
+                long length = Math.min(WINDOW_BYTES, size - position);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                position += length;
+            }
+            u = window.getInt();
+            v = window.getInt();
+            w = window.getInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Writes connections in the binary format read by minCostExternal
+    static void writeConnections(Path file, int[][] connections) throws IOException {
+        try (RunWriter out = new RunWriter(file)) {
+            for (int[] connection : connections) out.write(connection[0], connection[1], connection[2]);
+        }
+    }
+
+    // Same answer as minCost with the connections read from a file; memoryBytes bounds one sort chunk on the heap and the windows
+    // mapped at once while merging
+    public static MstResult minCostExternal(int n, int[] modules, Path connections, long memoryBytes) throws IOException {
+        int chunkEdges = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, memoryBytes / SORT_BYTES_PER_EDGE));
+        int fanIn = (int) Math.min(1024, Math.max(2, memoryBytes / WINDOW_BYTES));
+        Path directory = Files.createTempDirectory("mst-runs");
+        try {
+            long start = System.nanoTime();
+            List<Path> runs = sortedRuns(n, modules, connections, chunkEdges, directory);
+            long loaded = System.nanoTime();
+
+            while (runs.size() > fanIn) {
+                List<Path> longer = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += fanIn) {
+                    List<Path> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+                    Path merged = Files.createTempFile(directory, "run", ".bin");
+                    try (RunWriter out = new RunWriter(merged)) {
+                        merge(group, (u, v, w) -> {
+                            out.write(u, v, w);
+                            return true;
+                        });
+                    }
+                    for (Path run : group) Files.delete(run);
+                    longer.add(merged);
+                }
+                runs = longer;
+            }
+            long sorted = System.nanoTime();
+
+            PackedUnionFind uf = new PackedUnionFind(n + 1);
+            long[] totalCost = {0};
+            int[] edgesUsed = {0};
+            if (n > 0) {
+                merge(runs, (u, v, w) -> {
+                    if (uf.unionIfDisjoint(u, v)) {
+                        totalCost[0] += w;
+                        edgesUsed[0]++;
+                    }
+                    return edgesUsed[0] < n;
+                });
+            }
+            return new MstResult(totalCost[0], loaded - start, sorted - loaded, System.nanoTime() - sorted);
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) Files.deleteIfExists(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    // Module edges and then the file's connections, cut into chunks of chunkEdges, each sorted into its own run file
+    private static List<Path> sortedRuns(int n, int[] modules, Path connections, int chunkEdges, Path directory) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        EdgeStore chunk = new EdgeStore(chunkEdges);
+        for (int i = 0; i < n; i++) {
+            if (chunk.size == chunkEdges) runs.add(writeRun(chunk, directory));
+            chunk.add(0, i + 1, modules[i]);
+        }
+        try (FileChannel channel = FileChannel.open(connections, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES << 12);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    if (chunk.size == chunkEdges) runs.add(writeRun(chunk, directory));
+                    chunk.add(buffer.getInt(), buffer.getInt(), buffer.getInt());
+                }
+                buffer.compact();
+            }
+            if (buffer.position() != 0) throw new IOException("Connection file ends inside a record: " + connections);
+        }
+        if (chunk.size > 0) runs.add(writeRun(chunk, directory));
+        return runs;
+    }
+
+    // Writes the chunk sorted by cost and empties it
+    private static Path writeRun(EdgeStore chunk, Path directory) throws IOException {
+        Path run = Files.createTempFile(directory, "run", ".bin");
+        try (RunWriter out = new RunWriter(run)) {
+            for (int e : chunk.sortedByWeight()) out.write(chunk.u[e], chunk.v[e], chunk.w[e]);
+        }
+        chunk.size = 0;
+        return run;
+    }
+
+    // K-way merge of sorted runs with a heap of run numbers ordered by the cost of their current edge
+    private static void merge(List<Path> runs, EdgeSink sink) throws IOException {
+        RunReader[] readers = new RunReader[runs.size()];
+        int[] heap = new int[runs.size()];
+        int size = 0;
+        try {
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = new RunReader(runs.get(r));
+                if (readers[r].next()) heap[size++] = r;
+            }
+            for (int k = size / 2 - 1; k >= 0; k--) siftDown(heap, size, k, readers);
+            while (size > 0) {
+                RunReader top = readers[heap[0]];
+                if (!sink.accept(top.u, top.v, top.w)) return;
+                if (!top.next()) heap[0] = heap[--size];
+                siftDown(heap, size, 0, readers);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) reader.close();
+            }
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, int k, RunReader[] readers) {
+        int r = heap[k];
+        while (2 * k + 1 < size) {
+            int child = 2 * k + 1;
+            if (child + 1 < size && before(heap[child + 1], heap[child], readers)) child++;
+            if (!before(heap[child], r, readers)) break;
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = r;
+    }
+
+    // Lower cost first, then the earlier run, so equal costs keep their input order
+    private static boolean before(int a, int b, RunReader[] readers) {
+        return readers[a].w != readers[b].w ? readers[a].w < readers[b].w : a < b;
+    }
+
+    // Times UnionFind and PackedUnionFind on the same union and find sequences
+    static void unionFindBenchmark(int size) {
+        Random random = new Random(23);
+        int[][] sequences = new int[3][];
+        String[] names = {"random pairs", "chain i -> i + 1", "pairs doubling in size"};
+        // Random pairs
+        sequences[0] = new int[2 * size];
+        for (int k = 0; k < sequences[0].length; k++) sequences[0][k] = random.nextInt(size);
+        // A chain, joined from the end, which is the worst case without union by size
+        sequences[1] = new int[2 * (size - 1)];
+        for (int k = 0; k < size - 1; k++) {
+            sequences[1][2 * k] = size - 2 - k;
+            sequences[1][2 * k + 1] = size - 1 - k;
+        }
+        // Sets of equal size joined pairwise, which builds the deepest trees union by rank or size allows
+        int[] doubling = new int[2 * (size - 1)];
+        int k = 0;
+        for (int step = 1; step < size; step *= 2) {
+            for (int i = 0; i + step < size; i += 2 * step) {
+                doubling[k++] = i;
+                doubling[k++] = i + step;
+            }
+        }
+        sequences[2] = Arrays.copyOf(doubling, k);
+
+        for (int round = 0; round < 3; round++) { // The first rounds warm up the JIT
+            for (int s = 0; s < sequences.length; s++) {
+                int[] pairs = sequences[s];
+                long start = System.nanoTime();
+                UnionFind recursive = new UnionFind(size);
+                for (int p = 0; p < pairs.length; p += 2) {
+                    if (recursive.find(pairs[p]) != recursive.find(pairs[p + 1])) recursive.union(pairs[p], pairs[p + 1]);
+                }
+                double recursiveMs = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                PackedUnionFind packed = new PackedUnionFind(size);
+                for (int p = 0; p < pairs.length; p += 2) packed.unionIfDisjoint(pairs[p], pairs[p + 1]);
+                double packedMs = (System.nanoTime() - start) / 1e6;
+                System.out.printf("round %d, %-22s: UnionFind %7.1f ms, PackedUnionFind %7.1f ms%n", round, names[s], recursiveMs, packedMs);
+            }
+        }
+    }
+
+    // Random network with n devices and the given number of connections
+    static int[][] randomConnections(Random random, int n, int count, int maxCost) {
+        int[][] connections = new int[count][];
+        for (int j = 0; j < count; j++) {
+            connections[j] = new int[]{1 + random.nextInt(n), 1 + random.nextInt(n), random.nextInt(maxCost)};
+        }
+        return connections;
+    }
+
+    static int[] randomModules(Random random, int n, int maxCost) {
+        int[] modules = new int[n];
+        for (int i = 0; i < n; i++) modules[i] = random.nextInt(maxCost);
+        return modules;
+    }
+
+    public static void main(String[] args) throws IOException {
         // Example input
         int n = 3;
         int[] modules = {1, 2, 2};
@@ -126,7 +1049,150 @@ public class NetworkConnection3a {
 
         // Output the result
         System.out.println("The minimum cost to connect all devices is: " + result);
+        System.out.println("Columnar Kruskal: " + minCostColumnar(n, modules, connections));
+
+        // Random networks against the original method
+        Random random = new Random(17);
+        boolean same = true;
+        for (int t = 0; t < 300; t++) {
+            int devices = 1 + random.nextInt(30);
+            int[] randomModules = randomModules(random, devices, 100);
+            int[][] randomConnections = randomConnections(random, devices, random.nextInt(80), 100);
+            same &= minCost(devices, randomModules, randomConnections)
+                == minCostColumnar(devices, randomModules, randomConnections).cost;
+        }
+        System.out.println("Columnar Kruskal matches minCost: " + same);
+
+        // Parallel Boruvka against the original method, with many equal costs
+        ForkJoinPool pool = new ForkJoinPool(4);
+        same = true;
+        for (int t = 0; t < 300; t++) {
+            int devices = 1 + random.nextInt(30);
+            int[] randomModules = randomModules(random, devices, 10);
+            int[][] randomConnections = randomConnections(random, devices, random.nextInt(80), 10);
+            same &= minCost(devices, randomModules, randomConnections) == minCostParallel(devices, randomModules, randomConnections, pool);
+        }
+        pool.shutdown();
+        System.out.println("Parallel Boruvka matches minCost: " + same);
+
+        // Dynamic network against a full recompute after every change
+        same = true;
+        for (int t = 0; t < 100; t++) {
+            int devices = 1 + random.nextInt(12);
+            int[] dynamicModules = randomModules(random, devices, 20);
+            List<int[]> live = new ArrayList<>(Arrays.asList(randomConnections(random, devices, random.nextInt(20), 20)));
+            DynamicNetwork network = new DynamicNetwork(devices, dynamicModules, live.toArray(new int[0][]));
+            List<Integer> ids = new ArrayList<>();
+            for (int j = 0; j < live.size(); j++) ids.add(devices + j);
+            for (int step = 0; step < 30; step++) {
+                int action = random.nextInt(3);
+                if (action == 0 || ids.isEmpty()) {
+                    int[] connection = {1 + random.nextInt(devices), 1 + random.nextInt(devices), random.nextInt(20)};
+                    ids.add(network.addConnection(connection[0], connection[1], connection[2]));
+                    live.add(connection);
+                } else if (action == 1) {
+                    int k = random.nextInt(ids.size());
+                    network.removeConnection(ids.remove(k));
+                    live.remove(k);
+                } else {
+                    int device = 1 + random.nextInt(devices);
+                    dynamicModules[device - 1] = random.nextInt(20);
+                    network.updateModuleCost(device, dynamicModules[device - 1]);
+                }
+                same &= network.totalCost() == minCost(devices, dynamicModules, live.toArray(new int[0][]));
+            }
+        }
+        System.out.println("Dynamic network matches minCost after every change: " + same);
+
+        // External merge with a tiny budget, so there are many runs and more than one merge pass
+        same = true;
+        Path connectionFile = Files.createTempFile("connections", ".bin");
+        try {
+            for (int t = 0; t < 50; t++) {
+                int devices = 1 + random.nextInt(200);
+                int[] externalModules = randomModules(random, devices, 100);
+                int[][] externalConnections = randomConnections(random, devices, random.nextInt(1000), 100);
+                writeConnections(connectionFile, externalConnections);
+                same &= minCostExternal(devices, externalModules, connectionFile, 1000).cost
+                    == minCost(devices, externalModules, externalConnections);
+            }
+        } finally {
+            Files.delete(connectionFile);
+        }
+        System.out.println("External merge matches minCost: " + same);
+
+        // A long chain that would be deep without union by size
+        PackedUnionFind chain = new PackedUnionFind(1000000);
+        for (int i = 999998; i >= 0; i--) chain.unionIfDisjoint(i, i + 1);
+        System.out.println("Chain of 1000000 devices in one set: " + (chain.size(0) == 1000000));
+
+        // Run with "--union-find <size>" to compare the two Union-Find classes
+        if (args.length == 2 && args[0].equals("--union-find")) {
+            unionFindBenchmark(Integer.parseInt(args[1]));
+        }
+
+        // Run with "--large <devices> <connections>" to time the phases on a big random network
+        if (args.length == 3 && args[0].equals("--large")) {
+            int devices = Integer.parseInt(args[1]);
+            int[] largeModules = randomModules(random, devices, 1000000);
+            int[][] largeConnections = randomConnections(random, devices, Integer.parseInt(args[2]), 1000000);
+            System.out.println("Columnar Kruskal: " + minCostColumnar(devices, largeModules, largeConnections));
+        }
+
+        // Run with "--external <devices> <connections> <memory MB>" to build the file without an int[][] and run the external merge
+        if (args.length == 4 && args[0].equals("--external")) {
+            int devices = Integer.parseInt(args[1]);
+            long count = Long.parseLong(args[2]);
+            int[] externalModules = randomModules(random, devices, 1000000);
+            Path file = Files.createTempFile("connections", ".bin");
+            try {
+                try (RunWriter out = new RunWriter(file)) {
+                    for (long j = 0; j < count; j++) {
+                        out.write(1 + random.nextInt(devices), 1 + random.nextInt(devices), random.nextInt(1000000));
+                    }
+                }
+                System.out.println("External Kruskal: " + minCostExternal(devices, externalModules, file,
+                    Long.parseLong(args[3]) << 20));
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        // Run with "--dynamic <devices> <connections>" to time single changes on a big network
+        if (args.length == 3 && args[0].equals("--dynamic")) {
+            int devices = Integer.parseInt(args[1]);
+            int[] dynamicModules = randomModules(random, devices, 1000000);
+            DynamicNetwork network = new DynamicNetwork(devices, dynamicModules,
+                randomConnections(random, devices, Integer.parseInt(args[2]), 1000000));
+            int operations = 100000;
+            int[] added = new int[operations];
+            long start = System.nanoTime();
+            for (int k = 0; k < operations; k++) {
+                added[k] = network.addConnection(1 + random.nextInt(devices), 1 + random.nextInt(devices), random.nextInt(1000000));
+            }
+            System.out.printf("addConnection: %.2f us each%n", (System.nanoTime() - start) / 1e3 / operations);
+            start = System.nanoTime();
+            for (int k = 0; k < operations; k += 2) network.removeConnection(added[k]);
+            System.out.printf("removeConnection: %.2f us each%n", (System.nanoTime() - start) / 1e3 / (operations / 2));
+            start = System.nanoTime();
+            for (int k = 0; k < operations; k++) {
+                network.updateModuleCost(1 + random.nextInt(devices), random.nextInt(1000000));
+            }
+            System.out.printf("updateModuleCost: %.2f us each, cost now %d%n", (System.nanoTime() - start) / 1e3 / operations,
+                network.totalCost());
+        }
+
+        // Run with "--parallel <devices> <connections>" to print the parallel speedup
+        if (args.length == 3 && args[0].equals("--parallel")) {
+            parallelReport(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
     }
 }
 
-/*Output :The minimum cost to connect all devices is: 3 */
+/*Output :The minimum cost to connect all devices is: 3
+Columnar Kruskal: cost 3 (load 0.0 ms, sort 0.1 ms, union 0.0 ms)
+Columnar Kruskal matches minCost: true
+Parallel Boruvka matches minCost: true
+Dynamic network matches minCost after every change: true
+External merge matches minCost: true
+Chain of 1000000 devices in one set: true */
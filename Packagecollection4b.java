@@ -22,6 +22,20 @@
 
 // 6)Return the Minimum Roads: The final result is the minimum number of roads traversed to collect all packages and return to the starting location.
 
+// Faster Engines (same answers as the search above):
+// The search checks for all packages when it arrives at a location, before collecting there, so a simple path v0..vk counts when
+// v0..v(k-1) cover every package, and it costs k roads plus the shortest way back from vk to v0.
+// 7) Trees: the way back from vk is k roads, so the cost is twice the number of locations in the covering path. Locations without a
+// package are trimmed from the leaves, then two more layers of leaves are trimmed. What is left is the core, which every covering path
+// must contain and which already covers every package:
+//    - An empty core means a single location covers everything, so the answer is 2 when there is a road to step along.
+//    - A core that is a path of L locations gives 2 * L.
+//    - Any other core cannot be walked in one simple path.
+//    This takes O(n) time.
+// 8) Other graphs up to 16 locations: a state search over (visited set, current location) that keeps the set of possible starting
+// locations as a bitmask. The locations within distance 2 of each location and the BFS distances between all locations are computed once.
+// 9) Larger graphs that are not trees still use the search above.
+
 
 import java.util.List;
 import java.util.ArrayList;
@@ -30,6 +44,7 @@ import java.util.Set;
 import java.util.Queue;
 import java.util.LinkedList;
 import java.util.Arrays;
+import java.util.Random;
 
 class Solution {
     private List<List<Integer>> graph; // Adjacency list representation of the graph
@@ -37,7 +52,21 @@ class Solution {
     private boolean[] visited; // Array to keep track of visited nodes during DFS
     private int minRoads; // Variable to store the minimum number of roads traversed
 
+    static final int BITMASK_LIMIT = 16; // Largest graph for the state search, which uses (2^n * n) ints
+
     public int PackageCollection(int[] packages, int[][] roads) {
+        int n = packages.length;
+        if (n == 0) return Integer.MAX_VALUE;
+        this.packages = packages;
+        this.graph = buildGraph(n, roads);
+        if (countPackages() == 0) return 0;
+        if (roads.length == n - 1 && isConnected()) return treeCollection();
+        if (n <= BITMASK_LIMIT) return bitmaskCollection();
+        return searchAllPaths(packages, roads);
+    }
+
+    // The original search over every simple path from every location
+    public int searchAllPaths(int[] packages, int[][] roads) {
         // Initialize class variables
         this.packages = packages;
         this.graph = buildGraph(packages.length, roads);
@@ -80,6 +109,136 @@ class Solution {
         visited[current] = false; // Backtrack: mark current node as unvisited
     }
 
+    private boolean isConnected() {
+        int n = packages.length;
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        seen[0] = true;
+        queue[tail++] = 0;
+        for (int head = 0; head < tail; head++) {
+            for (int neighbor : graph.get(queue[head])) {
+                if (!seen[neighbor]) {
+                    seen[neighbor] = true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return tail == n;
+    }
+
+    // Trims the tree down to its core; the covering path must be exactly the core
+    private int treeCollection() {
+        int n = packages.length;
+        int[] degree = new int[n];
+        boolean[] removed = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            degree[i] = graph.get(i).size();
+            if (degree[i] <= 1 && packages[i] != 1) {
+                removed[i] = true;
+                queue[tail++] = i;
+            }
+        }
+        // Leaves without a package, until every leaf has one
+        for (int head = 0; head < tail; head++) {
+            for (int neighbor : graph.get(queue[head])) {
+                if (!removed[neighbor] && --degree[neighbor] <= 1 && packages[neighbor] != 1) {
+                    removed[neighbor] = true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        // Two layers of leaves, each removed all at once
+        for (int layer = 0; layer < 2; layer++) {
+            int leaves = 0;
+            for (int i = 0; i < n; i++) {
+                if (!removed[i] && degree[i] <= 1) queue[leaves++] = i;
+            }
+            for (int k = 0; k < leaves; k++) removed[queue[k]] = true;
+            for (int k = 0; k < leaves; k++) {
+                for (int neighbor : graph.get(queue[k])) {
+                    if (!removed[neighbor]) degree[neighbor]--;
+                }
+            }
+        }
+        int core = 0;
+        for (int i = 0; i < n; i++) {
+            if (removed[i]) continue;
+            if (degree[i] > 2) return Integer.MAX_VALUE; // The core branches
+            core++;
+        }
+        if (core == 0) return n > 1 ? 2 : Integer.MAX_VALUE;
+        return 2 * core;
+    }
+
+    // State search over (visited set, current location); starts[mask * n + current] holds the possible starting locations
+    private int bitmaskCollection() {
+        int n = packages.length;
+        int[][] distance = new int[n][];
+        int[] adjacent = new int[n];
+        int[] near = new int[n]; // Packages within distance 2
+        int wanted = 0;
+        for (int i = 0; i < n; i++) {
+            distance[i] = distancesFrom(i);
+            for (int neighbor : graph.get(i)) adjacent[i] |= 1 << neighbor;
+            if (packages[i] == 1) wanted |= 1 << i;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (distance[i][j] <= 2 && packages[j] == 1) near[i] |= 1 << j;
+            }
+        }
+
+        int[] cover = new int[1 << n];
+        int[] starts = new int[(1 << n) * n];
+        for (int i = 0; i < n; i++) starts[(1 << i) * n + i] = 1 << i;
+        int best = Integer.MAX_VALUE;
+        for (int mask = 1; mask < 1 << n; mask++) {
+            cover[mask] = cover[mask & (mask - 1)] | near[Integer.numberOfTrailingZeros(mask)];
+            boolean covered = (cover[mask] & wanted) == wanted;
+            int roads = Integer.bitCount(mask);
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int current = Integer.numberOfTrailingZeros(rest);
+                int from = starts[mask * n + current];
+                if (from == 0) continue;
+                for (int next = adjacent[current] & ~mask; next != 0; next &= next - 1) {
+                    int step = Integer.numberOfTrailingZeros(next);
+                    if (covered) {
+                        // The next step ends the walk; longer paths from here never cost less
+                        for (int s = from; s != 0; s &= s - 1) {
+                            best = Math.min(best, roads + distance[step][Integer.numberOfTrailingZeros(s)]);
+                        }
+                    } else {
+                        starts[(mask | 1 << step) * n + step] |= from;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int[] distancesFrom(int from) {
+        int n = packages.length;
+        int[] distance = new int[n];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        int[] queue = new int[n];
+        int tail = 0;
+        distance[from] = 0;
+        queue[tail++] = from;
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            for (int neighbor : graph.get(current)) {
+                if (distance[neighbor] == Integer.MAX_VALUE) {
+                    distance[neighbor] = distance[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distance;
+    }
+
     private List<List<Integer>> buildGraph(int n, int[][] roads) {
         // Create an adjacency list representation of the graph
         List<List<Integer>> graph = new ArrayList<>();
@@ -135,7 +294,48 @@ class Solution {
         int[] packages = {1, 0, 0, 0, 0, 1};
         int[][] roads = {{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 5}};
         System.out.println(solution.PackageCollection(packages, roads));
+
+        // Both engines against the original search on small random inputs
+        Random random = new Random(25);
+        boolean treesMatch = true, graphsMatch = true;
+        for (int t = 0; t < 2000; t++) {
+            int n = 1 + random.nextInt(9);
+            int[] randomPackages = new int[n];
+            for (int i = 0; i < n; i++) randomPackages[i] = random.nextInt(3) == 0 ? 1 : 0;
+            boolean tree = t % 2 == 0;
+            List<int[]> randomRoads = new ArrayList<>();
+            if (tree) {
+                for (int i = 1; i < n; i++) randomRoads.add(new int[]{random.nextInt(i), i});
+            } else {
+                int m = random.nextInt(2 * n + 1);
+                for (int j = 0; j < m; j++) randomRoads.add(new int[]{random.nextInt(n), random.nextInt(n)});
+            }
+            int[][] roadArray = randomRoads.toArray(new int[0][]);
+            boolean same = solution.PackageCollection(randomPackages, roadArray) == solution.searchAllPaths(randomPackages, roadArray);
+            if (tree) treesMatch &= same; else graphsMatch &= same;
+        }
+        System.out.println("Tree engine matches the search: " + treesMatch);
+        System.out.println("State search matches the search: " + graphsMatch);
+
+        // A long path with packages at both ends
+        int n = 1000000;
+        int[] longPackages = new int[n];
+        longPackages[0] = longPackages[n - 1] = 1;
+        int[][] longRoads = new int[n - 1][];
+        for (int i = 0; i < n - 1; i++) longRoads[i] = new int[]{i, i + 1};
+        long start = System.nanoTime();
+        int answer = solution.PackageCollection(longPackages, longRoads);
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.println("Path of " + n + " locations: " + answer + " roads");
+
+        // Run with "--timing" to print how long the long path took
+        if (args.length == 1 && args[0].equals("--timing")) {
+            System.out.printf("Long path solved in %.1f ms%n", ms);
+        }
     }
 }
 
 //Output: 4
+//Tree engine matches the search: true
+//State search matches the search: true
+//Path of 1000000 locations: 1999992 roads
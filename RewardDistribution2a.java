@@ -18,7 +18,36 @@
 // 4) Total Rewards: Finally, sum up all the values in the rewards array to get the total number of rewards needed.
 // Time Complexity: The solution requires two passes through the ratings array, so the time complexity is O(n), where n is the number of employees.
 
+// Streaming Approach (RewardCounter):
+// The reward of an employee is 1 + the longer of the ascending run ending there and the descending run starting there. A single pass
+// only needs the length of the current ascending run (up), the length of the current descending run (down) and the height of the last
+// peak. Each new employee in a descending run adds 1 + down rewards, because every employee in the run moves up by one; the peak only
+// moves up once the descending run is longer than the ascending run before it. This uses O(1) memory, so ratings can be read straight
+// from a channel or a memory-mapped file, and the total is kept in a long.
+
+// Parallel Approach (minRewardsParallel):
+// An employee rated no higher than both neighbours (a valley) always gets exactly 1 reward, and no ascending or descending run crosses
+// it. The array is cut into chunks that start at valleys, and each chunk is counted on its own on a ForkJoinPool. A chunk is counted up
+// to and including the next valley, then that valley's single reward is dropped because the next chunk counts it. When a chunk window
+// has no valley, it is joined to the chunk before it.
+
+// Incremental Updates (RewardTracker):
+// For every employee keep the ascending run ending there and the descending run starting there; the reward is the larger of the two.
+// Changing one rating only changes the ascending runs to its right and the descending runs to its left, and only until a run length
+// comes out the same as before, so an update touches the affected runs instead of the whole array.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class RewardDistribution2a { // Class name RewardDistribution 
 
@@ -59,6 +88,263 @@ public class RewardDistribution2a { // Class name RewardDistribution
         return totalRewards;
     }
 
+    // Single-pass reward total with O(1) state, ratings are fed one at a time
+    public static final class RewardCounter {
+        private long total;
+        private long up;   // Length of the ascending run ending at the last rating
+        private long down; // Length of the descending run ending at the last rating
+        private long peak; // Value of up at the top of the last ascending run
+        private int previous;
+        private boolean started;
+
+        public void accept(int rating) {
+            if (!started) {
+                started = true;
+                total = 1;
+            } else if (rating > previous) {
+                up++;
+                peak = up;
+                down = 0;
+                total += 1 + up;
+            } else if (rating == previous) {
+                up = 0;
+                down = 0;
+                peak = 0;
+                total += 1;
+            } else {
+                up = 0;
+                down++;
+                // The run below the peak grows by one; the peak itself only grows once the run is longer than its climb
+                total += 1 + down - (peak >= down ? 1 : 0);
+            }
+            previous = rating;
+        }
+
+        public long total() {
+            return total;
+        }
+    }
+
+    // One pass over an array, the total is a long so it cannot overflow
+    public static long minRewardsOnePass(int[] ratings) {
+        RewardCounter counter = new RewardCounter();
+        for (int rating : ratings) {
+            counter.accept(rating);
+        }
+        return counter.total();
+    }
+
+    // Ratings read as big-endian 4-byte ints from a channel until end of stream
+    public static long minRewards(ReadableByteChannel channel) throws IOException {
+        RewardCounter counter = new RewardCounter();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.remaining() >= 4) {
+                counter.accept(buffer.getInt());
+            }
+            buffer.compact(); // Keep a partial int for the next read
+        }
+        if (buffer.position() != 0) {
+            throw new IOException("Rating stream ended in the middle of a rating");
+        }
+        return counter.total();
+    }
+
+    // Ratings read as big-endian 4-byte ints from a memory-mapped file, mapped in windows so files can exceed 2 GB
+    public static long minRewards(Path file) throws IOException {
+        RewardCounter counter = new RewardCounter();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % 4 != 0) {
+                throw new IOException("Rating file " + file + " has " + size + " bytes, not a whole number of ratings");
+            }
+            long window = 1L << 30;
+            for (long offset = 0; offset < size; offset += window) {
+                IntBuffer ratings = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(window, size - offset)).asIntBuffer();
+                while (ratings.hasRemaining()) {
+                    counter.accept(ratings.get());
+                }
+            }
+        }
+        return counter.total();
+    }
+
+    // Parallel total using about four chunks per worker
+    public static long minRewardsParallel(int[] ratings, ForkJoinPool pool) {
+        return minRewardsParallel(ratings, pool, pool.getParallelism() * 4);
+    }
+
+    // Parallel total with the array cut into at most the given number of chunks
+    public static long minRewardsParallel(int[] ratings, ForkJoinPool pool, int chunks) {
+        if (ratings.length == 0) return 0;
+        chunks = Math.max(1, Math.min(chunks, ratings.length));
+        return pool.invoke(new ChunkTask(ratings, chunks, 0, chunks));
+    }
+
+    // Counts the chunks [lo, hi) of the array, splitting in half until one chunk is left
+    static final class ChunkTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] ratings;
+        private final int chunks, lo, hi;
+
+        ChunkTask(int[] ratings, int chunks, int lo, int hi) {
+            this.ratings = ratings;
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hi - lo == 1) {
+                return countChunk(ratings, chunks, lo);
+            }
+            int mid = (lo + hi) >>> 1;
+            ChunkTask left = new ChunkTask(ratings, chunks, lo, mid);
+            left.fork();
+            long right = new ChunkTask(ratings, chunks, mid, hi).compute();
+            return left.join() + right;
+        }
+    }
+
+    // Rewards of chunk t: from its first valley up to the first valley of a later window (exclusive)
+    static long countChunk(int[] ratings, int chunks, int t) {
+        int n = ratings.length;
+        int start = t == 0 ? 0 : firstValley(ratings, windowStart(n, chunks, t), windowStart(n, chunks, t + 1));
+        if (start < 0) return 0; // No valley in this window, the previous chunk covers it
+
+        // The chunk ends at the first valley of the next window that has one
+        int end = -1;
+        for (int w = t + 1; w < chunks && end < 0; w++) {
+            end = firstValley(ratings, windowStart(n, chunks, w), windowStart(n, chunks, w + 1));
+        }
+        if (end < 0) return countRange(ratings, start, n - 1);
+        return countRange(ratings, start, end) - 1; // The valley at end gets 1 reward and belongs to the next chunk
+    }
+
+    // Start of window w when n ratings are split into the given number of windows
+    static int windowStart(int n, int chunks, int w) {
+        return (int) ((long) n * w / chunks);
+    }
+
+    // First index in [from, to) rated no higher than its neighbours, or -1
+    static int firstValley(int[] ratings, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((i == 0 || ratings[i] <= ratings[i - 1]) && (i == ratings.length - 1 || ratings[i] <= ratings[i + 1])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Single-pass total of ratings[from..to] as if the range were the whole array
+    static long countRange(int[] ratings, int from, int to) {
+        RewardCounter counter = new RewardCounter();
+        for (int i = from; i <= to; i++) {
+            counter.accept(ratings[i]);
+        }
+        return counter.total();
+    }
+
+    // Reward total that follows single rating changes
+    public static final class RewardTracker {
+        private final int[] ratings;
+        private final int[] ascending;  // Length of the strictly ascending run ending at i
+        private final int[] descending; // Length of the strictly descending run starting at i
+        private long total;
+        private int lastTouched;
+        private long touched;
+        private long updates;
+
+        public RewardTracker(int[] ratings) {
+            int n = ratings.length;
+            this.ratings = ratings.clone();
+            this.ascending = new int[n];
+            this.descending = new int[n];
+            for (int i = 0; i < n; i++) {
+                ascending[i] = i > 0 && ratings[i] > ratings[i - 1] ? ascending[i - 1] + 1 : 1;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                descending[i] = i < n - 1 && ratings[i] > ratings[i + 1] ? descending[i + 1] + 1 : 1;
+                total += Math.max(ascending[i], descending[i]);
+            }
+        }
+
+        // Change one rating and fix the runs around it
+        public void update(int index, int newRating) {
+            int n = ratings.length;
+            ratings[index] = newRating;
+            int cells = 0;
+
+            // Ascending runs to the right, stop once a length beyond the changed comparison stays the same
+            for (int j = index; j < n; j++) {
+                int length = j > 0 && ratings[j] > ratings[j - 1] ? ascending[j - 1] + 1 : 1;
+                cells++;
+                if (j > index && length == ascending[j]) break;
+                total += Math.max(length, descending[j]) - Math.max(ascending[j], descending[j]);
+                ascending[j] = length;
+            }
+
+            // Descending runs to the left
+            for (int j = index; j >= 0; j--) {
+                int length = j < n - 1 && ratings[j] > ratings[j + 1] ? descending[j + 1] + 1 : 1;
+                cells++;
+                if (j < index && length == descending[j]) break;
+                total += Math.max(ascending[j], length) - Math.max(ascending[j], descending[j]);
+                descending[j] = length;
+            }
+
+            lastTouched = cells;
+            touched += cells;
+            updates++;
+        }
+
+        public long total() {
+            return total;
+        }
+
+        // Cells read by the most recent update
+        public int lastUpdateCells() {
+            return lastTouched;
+        }
+
+        // Average cells read per update so far
+        public double averageUpdateCells() {
+            return updates == 0 ? 0 : (double) touched / updates;
+        }
+    }
+
+    // Prints sequential and parallel timings for 10^6 up to 10^maxExponent random ratings
+    public static void scalingBenchmark(int maxExponent) {
+        Random random = new Random(7);
+        for (int e = 6; e <= maxExponent; e++) {
+            long size = (long) Math.pow(10, e);
+            if (size > Integer.MAX_VALUE - 8) {
+                System.out.println("10^" + e + " ratings do not fit in one Java array, use the streaming minRewards(Path) instead");
+                break;
+            }
+            int[] ratings = new int[(int) size];
+            for (int i = 0; i < ratings.length; i++) ratings[i] = random.nextInt(1000);
+
+            long start = System.nanoTime();
+            long expected = minRewardsOnePass(ratings);
+            double sequentialMs = (System.nanoTime() - start) / 1e6;
+            System.out.printf("n = 10^%d: single pass %.1f ms%n", e, sequentialMs);
+            for (int workers = 1; workers <= Runtime.getRuntime().availableProcessors() * 2; workers *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(workers);
+                minRewardsParallel(ratings, pool); // Warm-up run
+                start = System.nanoTime();
+                long total = minRewardsParallel(ratings, pool);
+                double ms = (System.nanoTime() - start) / 1e6;
+                pool.shutdown();
+                System.out.printf("  workers = %2d: %8.1f ms, speedup %.2fx, same total: %b%n",
+                    workers, ms, sequentialMs / ms, total == expected);
+            }
+        }
+    }
+
     public static void main(String[] args) {
         // Example 1
         int[] ratings1 = {1, 0, 2};
@@ -67,8 +353,72 @@ public class RewardDistribution2a { // Class name RewardDistribution
         // Example 2
         int[] ratings2 = {1, 2, 2};
         System.out.println("Minimum Rewards (Example 2): " + minRewards(ratings2)); // Output: 4
+
+        // Single-pass version over random ratings
+        Random random = new Random(42);
+        boolean same = true;
+        for (int t = 0; t < 1000; t++) {
+            int[] ratings = new int[1 + random.nextInt(50)];
+            for (int i = 0; i < ratings.length; i++) ratings[i] = random.nextInt(5);
+            same &= minRewards(ratings) == minRewardsOnePass(ratings);
+        }
+        System.out.println("Single pass matches two passes: " + same);
+
+        // Parallel chunks against the two-pass method, including runs with no valley inside a chunk
+        ForkJoinPool pool = new ForkJoinPool(4);
+        same = true;
+        for (int t = 0; t < 1000; t++) {
+            int[] ratings = new int[1 + random.nextInt(200)];
+            for (int i = 0; i < ratings.length; i++) {
+                ratings[i] = t % 3 == 0 ? i : t % 3 == 1 ? random.nextInt(4) : (i % 50) * (i % 2 == 0 ? 1 : -1);
+            }
+            same &= minRewards(ratings) == minRewardsParallel(ratings, pool, 1 + random.nextInt(16));
+        }
+        pool.shutdown();
+        System.out.println("Parallel chunks match two passes: " + same);
+
+        // Single rating updates against a full recount
+        int[] tracked = new int[100000];
+        for (int i = 0; i < tracked.length; i++) tracked[i] = random.nextInt(100);
+        RewardTracker tracker = new RewardTracker(tracked);
+        same = true;
+        for (int t = 0; t < 200; t++) {
+            int index = random.nextInt(tracked.length);
+            tracked[index] = random.nextInt(100);
+            tracker.update(index, tracked[index]);
+            same &= tracker.total() == minRewards(tracked);
+        }
+        System.out.println("Tracker matches a full recount: " + same);
+        System.out.printf("Average cells per update: %.1f of %d%n", tracker.averageUpdateCells(), tracked.length);
+
+        // Streaming from a file, both through a channel and through a memory mapping
+        try {
+            Path file = Files.createTempFile("ratings", ".bin");
+            int[] ratings3 = {1, 3, 5, 4, 3, 2, 1, 2, 2};
+            ByteBuffer bytes = ByteBuffer.allocate(ratings3.length * 4);
+            bytes.asIntBuffer().put(ratings3);
+            Files.write(file, bytes.array());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                System.out.println("Minimum Rewards (Channel): " + minRewards(channel)); // Output: 21
+            }
+            System.out.println("Minimum Rewards (Mapped file): " + minRewards(file)); // Output: 21
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Could not stream the ratings file: " + e.getMessage());
+        }
+
+        // Run with "--benchmark <max exponent>" to print the parallel scaling from 10^6 ratings
+        if (args.length == 2 && args[0].equals("--benchmark")) {
+            scalingBenchmark(Integer.parseInt(args[1]));
+        }
     }
 }
 //Output: 
 //Minimum Rewards (Example 1): 5
 //Minimum Rewards (Example 2): 4
+//Single pass matches two passes: true
+//Parallel chunks match two passes: true
+//Tracker matches a full recount: true
+//Average cells per update: 5.2 of 100000
+//Minimum Rewards (Channel): 21
+//Minimum Rewards (Mapped file): 21
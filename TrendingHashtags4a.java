@@ -12,8 +12,68 @@
 // 4) Sort and Limit: Sort hashtags by frequency (descending) and alphabetically for ties. Limit the result to the top 3.
 // 5) Output: Print the top 3 hashtags and their counts in a formatted table.
 
+// Streaming Pipeline:
+// 1) Input: Tweets come from an Iterator or a newline-delimited file (userId, tweetId, date and text separated by tabs) and are read one
+// at a time, so the input never has to fit in memory.
+// 2) Count: HashtagCounter is an open-addressing table with String keys and int counts, so counting does not box an Integer per hashtag.
+// 3) Top K: A min-heap holding at most K entries keeps the best hashtags seen so far, so picking the result costs O(distinct log K)
+// instead of sorting every hashtag.
+// 4) Scan: countHashtags walks the text by hand instead of running a regex. A hashtag is '#' followed by one or more of [a-zA-Z0-9_],
+// exactly what \w means in "#\w+". Each span is hashed in place and looked up in the table, and a String is only created the first
+// time a hashtag is seen.
 
+// Sliding Windows (WindowedTrending):
+// 1) Buckets: Time is cut into slide-length buckets and a window is the last window/slide buckets, e.g. 60 one-minute buckets for a
+// one-hour window that moves every minute. The oldest bucket is cleared when time moves past it.
+// 2) Count-Min Sketch: Every bucket counts hashtags in a depth x width table of ints. A hashtag's window count is the smallest row sum
+// over the live buckets, which is never too low and is too high by at most (e / width) * N with probability 1 - e^-depth, where N is
+// the number of hashtags in the window. The rows need independent hashes, so each hashtag gets one seeded 64-bit hash of its characters
+// and row r uses the column h1 + r * h2 of its two halves.
+// 3) Space-Saving: Every bucket also keeps its most frequent hashtags in a fixed-size list. Any hashtag used more than N / capacity
+// times in the window appears in at least one list, so the lists give the candidates that the sketch then estimates. A small
+// open-addressing index finds a monitored hashtag from the scanned span, and a min-heap gives the smallest slot to take over.
+// 4) Memory depends only on the window, slide, width, depth and capacity, not on how many different hashtags appear. An exact mode
+// also keeps full counts per bucket so the estimates can be checked.
+
+// Parallel Counting:
+// The tweet list is split into ranges on a ForkJoinPool and every range is counted into its own HashtagCounter, so workers never share
+// a table. Partial counters are merged pairwise and the top k is taken from the merged table with the usual ordering (count descending,
+// then hashtag ascending), so the result does not depend on how the work was split. A HashtagCounter can be written to and read from a
+// DataOutput/DataInput to merge partial counts from other processes.
+
+// Columnar Store (TweetStore):
+// Tweets are written in blocks. A block stores userId, tweetId and the date (as days since 1970-01-01) as int columns, followed by an
+// offset column and one byte arena holding the UTF-8 text of every tweet. A footer lists each block's position and its first and last
+// day. The reader memory-maps the file and only maps blocks whose day range overlaps the query, so a query for February 2024 skips
+// every other block without decoding it. Inside a mapped block, rows are filtered on the stored day and the byte scanner runs over
+// each row's span of the arena, so no Tweet, String or byte copy is made per row. The footer is checked against the file size
+// before anything is allocated, and a corrupt one is reported as an IOException.
+
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.*;
 import java.util.stream.Collectors;
 
@@ -30,6 +90,1083 @@ class TrendingHashtags4a {
         );
 
         findTopTrendingHashtags(tweets);
+
+        // Same tweets through the streaming pipeline
+        printTable(findTopTrendingHashtags(tweets.iterator(), 3));
+
+        // And through a tab-separated file
+        try {
+            Path file = Files.createTempFile("tweets", ".tsv");
+            List<String> lines = new ArrayList<>();
+            for (Tweet tweet : tweets) {
+                lines.add(tweet.userId + "\t" + tweet.tweetId + "\t" + tweet.date + "\t" + tweet.text);
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            printTable(findTopTrendingHashtags(file, 3));
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Could not read the tweet file: " + e.getMessage());
+        }
+
+        // The scanner must find exactly the hashtags the regex finds
+        Random random = new Random(5);
+        String alphabet = "#aZ9_ -!#\u00e9\t";
+        boolean same = true;
+        for (int t = 0; t < 2000; t++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(30); i > 0; i--) text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            HashtagCounter regexCounts = new HashtagCounter();
+            Matcher matcher = Pattern.compile("#\\w+").matcher(text);
+            while (matcher.find()) regexCounts.add(matcher.group());
+            HashtagCounter scannerCounts = new HashtagCounter();
+            countHashtags(text, scannerCounts);
+            HashtagCounter byteCounts = new HashtagCounter();
+            byte[] utf8 = text.toString().getBytes(StandardCharsets.UTF_8);
+            countHashtags(utf8, 0, utf8.length, byteCounts);
+            HashtagCounter bufferCounts = new HashtagCounter();
+            countHashtags(ByteBuffer.wrap(utf8), 0, utf8.length, bufferCounts);
+            same &= regexCounts.topK(100).toString().equals(scannerCounts.topK(100).toString())
+                && regexCounts.topK(100).toString().equals(byteCounts.topK(100).toString())
+                && regexCounts.topK(100).toString().equals(bufferCounts.topK(100).toString());
+        }
+        System.out.println("Scanner matches the regex: " + same);
+
+        // Seven-day window sliding one day at a time, fed with the same tweets
+        WindowedTrending window = new WindowedTrending(Duration.ofDays(7), Duration.ofDays(1), 1024, 5, 16, true);
+        for (Tweet tweet : tweets) window.add(tweet);
+        System.out.println("Window ending 2024-02-09, estimated: " + window.topK(3));
+        System.out.println("Window ending 2024-02-09, exact: " + window.exactTopK(3));
+
+        // #Aa and #BB have the same String.hashCode, the sketch rows must still tell them apart
+        WindowedTrending colliding = new WindowedTrending(Duration.ofDays(1), Duration.ofDays(1), 1024, 5, 16, true);
+        for (int i = 0; i < 100; i++) colliding.add(0, "#Aa");
+        colliding.add(0, "#BB");
+        System.out.println("Colliding String hashes: " + colliding.topK(2));
+
+        // Fewer slots than hashtags: every hashtag above total / capacity must keep its slot
+        boolean heavyKept = true;
+        for (int t = 0; t < 200; t++) {
+            int capacity = 1 + random.nextInt(6);
+            WindowedTrending small = new WindowedTrending(Duration.ofDays(1), Duration.ofDays(1), 1024, 5, capacity, true);
+            int distinct = capacity + 1 + random.nextInt(20);
+            for (int i = 2 * distinct; i > 0; i--) {
+                // Runs of one hashtag, so a slot can grow at the top of the heap while new slots fill below it
+                String hashtag = "#T" + random.nextInt(distinct);
+                for (int run = random.nextInt(4) == 0 ? 1 + random.nextInt(30) : 1; run > 0; run--) small.add(0, hashtag);
+            }
+            List<HashtagCount> exactTop = small.exactTopK(distinct);
+            long total = 0;
+            for (HashtagCount count : exactTop) total += count.count;
+            Set<String> monitored = new HashSet<>();
+            for (TrendingEstimate estimate : small.topK(capacity)) monitored.add(estimate.hashtag);
+            for (HashtagCount count : exactTop) heavyKept &= count.count * capacity <= total || monitored.contains(count.hashtag);
+        }
+        WindowedTrending two = new WindowedTrending(Duration.ofDays(1), Duration.ofDays(1), 1024, 5, 2, true);
+        for (int i = 0; i < 5; i++) two.add(0, "#A");
+        two.add(0, "#B");
+        two.add(0, "#C");
+        System.out.println("Capacity 2: " + two.topK(3) + ", heavy hitters kept: " + heavyKept);
+
+        // Parallel counting and a partial count sent through a byte stream
+        ForkJoinPool pool = new ForkJoinPool(4);
+        System.out.println("Parallel top 3: " + findTopTrendingHashtags(tweets, 3, pool));
+        pool.shutdown();
+        try {
+            HashtagCounter partial = new HashtagCounter();
+            for (Tweet tweet : tweets.subList(0, 3)) countHashtags(tweet.text, partial);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            partial.writeTo(new DataOutputStream(bytes));
+            HashtagCounter merged = HashtagCounter.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            for (Tweet tweet : tweets.subList(3, tweets.size())) countHashtags(tweet.text, merged);
+            System.out.println("Merged partial counts: " + merged.topK(3));
+        } catch (IOException e) {
+            System.out.println("Could not serialize the partial counts: " + e.getMessage());
+        }
+
+        // Columnar store with two tweets per block, plus a January block that the February query skips
+        try {
+            Path file = Files.createTempFile("tweets", ".tws");
+            try (TweetStore.Writer writer = new TweetStore.Writer(file, 2)) {
+                writer.add(new Tweet(130, 10, "New year, new goals. #HappyDay #NewYear", "2024-01-02"));
+                writer.add(new Tweet(131, 11, "Still January. #NewYear", "2024-01-20"));
+                for (Tweet tweet : tweets) writer.add(tweet);
+            }
+            try (TweetStore store = TweetStore.open(file)) {
+                System.out.println("Store top 3: " + findTopTrendingHashtags(store, 3)
+                    + ", blocks read " + store.blocksRead() + " of " + store.blockCount());
+            }
+            // A block count that does not fit the file must be refused before anything is allocated
+            ByteBuffer footer = ByteBuffer.allocate(8).putInt(Integer.MAX_VALUE).putInt(TweetStore.MAGIC);
+            footer.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(footer, channel.size() - 8);
+            }
+            boolean refused = false;
+            try {
+                TweetStore.open(file).close();
+            } catch (IOException e) {
+                refused = e.getMessage().startsWith("Corrupt tweet store footer");
+            }
+            System.out.println("Corrupt footer refused: " + refused);
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Could not use the tweet store: " + e.getMessage());
+        }
+
+        // Run with "--benchmark <tweets>" to compare the regex and the scanner and time the parallel counter
+        if (args.length == 2 && args[0].equals("--benchmark")) {
+            tokenizerBenchmark(Integer.parseInt(args[1]));
+            parallelBenchmark(Integer.parseInt(args[1]));
+        }
+    }
+
+    // Streaming version: counts the hashtags of February 2024 tweets and returns the top k
+    public static List<HashtagCount> findTopTrendingHashtags(Iterator<Tweet> tweets, int k) {
+        HashtagCounter counter = new HashtagCounter();
+        while (tweets.hasNext()) {
+            Tweet tweet = tweets.next();
+            if (tweet.date.startsWith("2024-02")) { // Only consider tweets from February 2024
+                countHashtags(tweet.text, counter);
+            }
+        }
+        return counter.topK(k);
+    }
+
+    // Parallel version: February 2024 tweets are counted in independent ranges on the pool and the partial counts are merged
+    public static List<HashtagCount> findTopTrendingHashtags(List<Tweet> tweets, int k, ForkJoinPool pool) {
+        return pool.invoke(new CountTask(tweets, 0, tweets.size())).topK(k);
+    }
+
+    // Counts tweets[from, to) into one partial HashtagCounter
+    static final class CountTask extends RecursiveTask<HashtagCounter> {
+        private static final long serialVersionUID = 1L;
+        static final int THRESHOLD = 4096; // Tweets per leaf task
+
+        private final List<Tweet> tweets;
+        private final int from, to;
+
+        CountTask(List<Tweet> tweets, int from, int to) {
+            this.tweets = tweets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected HashtagCounter compute() {
+            if (to - from <= THRESHOLD) {
+                HashtagCounter counter = new HashtagCounter();
+                for (int i = from; i < to; i++) {
+                    Tweet tweet = tweets.get(i);
+                    if (tweet.date.startsWith("2024-02")) countHashtags(tweet.text, counter);
+                }
+                return counter;
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(tweets, from, mid);
+            left.fork();
+            HashtagCounter right = new CountTask(tweets, mid, to).compute();
+            HashtagCounter merged = left.join();
+            // Merge the smaller table into the larger one
+            if (merged.size() < right.size()) {
+                merged.addAll(right);
+                return right;
+            }
+            right.addAll(merged);
+            return merged;
+        }
+    }
+
+    // Tweets per second of the parallel counter with 1, 2, 4, ... workers up to twice the number of cores
+    static void parallelBenchmark(int tweetCount) {
+        Random random = new Random(13);
+        List<Tweet> tweets = new ArrayList<>(tweetCount);
+        for (int t = 0; t < tweetCount; t++) {
+            String text = "Update #Tag" + random.nextInt(20000) + " with #Tag" + random.nextInt(200) + " today";
+            tweets.add(new Tweet(t, t, text, "2024-02-" + (10 + random.nextInt(19))));
+        }
+        List<HashtagCount> expected = findTopTrendingHashtags(tweets.iterator(), 3);
+        for (int workers = 1; workers <= Runtime.getRuntime().availableProcessors() * 2; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            findTopTrendingHashtags(tweets, 3, pool); // Warm-up run
+            long start = System.nanoTime();
+            List<HashtagCount> top = findTopTrendingHashtags(tweets, 3, pool);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            System.out.printf("workers = %2d: %,.0f tweets/s, same top 3: %b%n",
+                workers, tweetCount / seconds, top.toString().equals(expected.toString()));
+        }
+    }
+
+    // Top k hashtags of February 2024 read from a tweet store, blocks outside the month are never mapped
+    public static List<HashtagCount> findTopTrendingHashtags(TweetStore store, int k) throws IOException {
+        HashtagCounter counter = new HashtagCounter();
+        store.countHashtags(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), counter);
+        return counter.topK(k);
+    }
+
+    // Memory-mapped reader for files written by TweetStore.Writer
+    static final class TweetStore implements AutoCloseable {
+        static final int MAGIC = 0x54575331; // "TWS1"
+
+        private final FileChannel channel;
+        private final long[] blockOffsets;
+        private final long[] blockLengths;
+        private final int[] blockMinDays;
+        private final int[] blockMaxDays;
+        private int blocksRead;
+        private int blocksSkipped;
+
+        private TweetStore(FileChannel channel) throws IOException {
+            this.channel = channel;
+            // Footer: blockCount block entries of (offset, length, minDay, maxDay), then blockCount and MAGIC
+            long size = channel.size();
+            if (size < 8) throw new IOException("Not a tweet store file");
+            ByteBuffer tail = ByteBuffer.allocate(8);
+            readFully(tail, size - 8);
+            int blockCount = tail.getInt(0);
+            if (tail.getInt(4) != MAGIC) throw new IOException("Not a tweet store file");
+            // The index must fit in the file before it, which also keeps blockCount * 24 from overflowing
+            if (blockCount < 0 || blockCount > Math.min((size - 8) / 24, Integer.MAX_VALUE / 24)) {
+                throw new IOException("Corrupt tweet store footer: " + blockCount + " blocks");
+            }
+            long dataEnd = size - 8 - blockCount * 24L;
+            ByteBuffer index = ByteBuffer.allocate(blockCount * 24);
+            readFully(index, dataEnd);
+            blockOffsets = new long[blockCount];
+            blockLengths = new long[blockCount];
+            blockMinDays = new int[blockCount];
+            blockMaxDays = new int[blockCount];
+            for (int b = 0; b < blockCount; b++) {
+                blockOffsets[b] = index.getLong();
+                blockLengths[b] = index.getLong();
+                blockMinDays[b] = index.getInt();
+                blockMaxDays[b] = index.getInt();
+                if (blockOffsets[b] < 0 || blockLengths[b] < 16 || blockLengths[b] > dataEnd - blockOffsets[b]) {
+                    throw new IOException("Corrupt tweet store footer: block " + b + " is outside the file");
+                }
+            }
+        }
+
+        static TweetStore open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                return new TweetStore(channel);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Tweet store file is truncated");
+            }
+            buffer.flip();
+        }
+
+        // Counts the hashtags of the tweets dated from..to (inclusive) straight from the mapped text arenas, without a Tweet per row
+        void countHashtags(LocalDate from, LocalDate to, HashtagCounter counter) throws IOException {
+            int fromDay = (int) from.toEpochDay();
+            int toDay = (int) to.toEpochDay();
+            for (int block = 0; block < blockOffsets.length; block++) {
+                MappedByteBuffer data = map(block, fromDay, toDay);
+                if (data == null) continue;
+                int count = data.getInt(0);
+                int arena = 16 + 16 * count + 4;
+                for (int i = 0; i < count; i++) {
+                    int day = data.getInt(16 + 8 * count + 4 * i);
+                    if (day < fromDay || day > toDay) continue;
+                    int textStart = data.getInt(16 + 12 * count + 4 * i);
+                    int textEnd = data.getInt(16 + 12 * count + 4 * (i + 1));
+                    TrendingHashtags4a.countHashtags(data, arena + textStart, arena + textEnd, counter);
+                }
+            }
+        }
+
+        // Maps the block if its day range overlaps fromDay..toDay, or counts it as skipped and returns null
+        private MappedByteBuffer map(int block, int fromDay, int toDay) throws IOException {
+            if (blockMaxDays[block] < fromDay || blockMinDays[block] > toDay) {
+                blocksSkipped++;
+                return null;
+            }
+            blocksRead++;
+            return channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[block], blockLengths[block]);
+        }
+
+        // Tweets dated from..to (inclusive), decoded lazily one at a time
+        Iterator<Tweet> tweets(LocalDate from, LocalDate to) {
+            int fromDay = (int) from.toEpochDay();
+            int toDay = (int) to.toEpochDay();
+            return new Iterator<Tweet>() {
+                private int block = -1;
+                private MappedByteBuffer data;
+                private int count, row;
+                private Tweet next = advance();
+
+                private Tweet advance() {
+                    while (true) {
+                        while (data != null && row < count) {
+                            int i = row++;
+                            int day = data.getInt(16 + 8 * count + 4 * i);
+                            if (day < fromDay || day > toDay) continue;
+                            int textStart = data.getInt(16 + 12 * count + 4 * i);
+                            int textEnd = data.getInt(16 + 12 * count + 4 * (i + 1));
+                            byte[] text = new byte[textEnd - textStart];
+                            data.get(16 + 16 * count + 4 + textStart, text);
+                            return new Tweet(data.getInt(16 + 4 * i), data.getInt(16 + 4 * count + 4 * i),
+                                new String(text, StandardCharsets.UTF_8), LocalDate.ofEpochDay(day).toString());
+                        }
+                        // Next block whose day range overlaps the query
+                        data = null;
+                        while (data == null) {
+                            if (++block >= blockOffsets.length) return null;
+                            try {
+                                data = map(block, fromDay, toDay);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        count = data.getInt(0);
+                        row = 0;
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Tweet next() {
+                    if (next == null) throw new NoSuchElementException();
+                    Tweet tweet = next;
+                    next = advance();
+                    return tweet;
+                }
+            };
+        }
+
+        int blockCount() {
+            return blockOffsets.length;
+        }
+
+        int blocksRead() {
+            return blocksRead;
+        }
+
+        int blocksSkipped() {
+            return blocksSkipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        // Writes tweets in blocks of blockSize rows; a block is laid out as
+        // count, minDay, maxDay, arenaBytes, userId[count], tweetId[count], day[count], textOffset[count + 1], arena
+        static final class Writer implements AutoCloseable {
+            private final FileChannel channel;
+            private final int blockSize;
+            private final int[] userIds, tweetIds, days;
+            private final int[] textOffsets;
+            private ByteArrayOutputStream arena = new ByteArrayOutputStream();
+            private int rows;
+            private final List<long[]> index = new ArrayList<>(); // {offset, length, minDay, maxDay}
+
+            Writer(Path file, int blockSize) throws IOException {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                this.blockSize = blockSize;
+                this.userIds = new int[blockSize];
+                this.tweetIds = new int[blockSize];
+                this.days = new int[blockSize];
+                this.textOffsets = new int[blockSize + 1];
+            }
+
+            void add(Tweet tweet) throws IOException {
+                userIds[rows] = tweet.userId;
+                tweetIds[rows] = tweet.tweetId;
+                days[rows] = (int) LocalDate.parse(tweet.date.substring(0, 10)).toEpochDay();
+                textOffsets[rows] = arena.size();
+                byte[] text = tweet.text.getBytes(StandardCharsets.UTF_8);
+                arena.write(text, 0, text.length);
+                if (++rows == blockSize) flushBlock();
+            }
+
+            private void flushBlock() throws IOException {
+                if (rows == 0) return;
+                textOffsets[rows] = arena.size();
+                int minDay = Integer.MAX_VALUE, maxDay = Integer.MIN_VALUE;
+                for (int i = 0; i < rows; i++) {
+                    minDay = Math.min(minDay, days[i]);
+                    maxDay = Math.max(maxDay, days[i]);
+                }
+                ByteBuffer block = ByteBuffer.allocate(16 + 16 * rows + 4 + arena.size());
+                block.putInt(rows).putInt(minDay).putInt(maxDay).putInt(arena.size());
+                for (int i = 0; i < rows; i++) block.putInt(userIds[i]);
+                for (int i = 0; i < rows; i++) block.putInt(tweetIds[i]);
+                for (int i = 0; i < rows; i++) block.putInt(days[i]);
+                for (int i = 0; i <= rows; i++) block.putInt(textOffsets[i]);
+                block.put(arena.toByteArray());
+                block.flip();
+                long offset = channel.position();
+                while (block.hasRemaining()) channel.write(block);
+                index.add(new long[]{offset, channel.position() - offset, minDay, maxDay});
+                rows = 0;
+                arena = new ByteArrayOutputStream();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    flushBlock();
+                    ByteBuffer footer = ByteBuffer.allocate(index.size() * 24 + 8);
+                    for (long[] entry : index) {
+                        footer.putLong(entry[0]).putLong(entry[1]).putInt((int) entry[2]).putInt((int) entry[3]);
+                    }
+                    footer.putInt(index.size()).putInt(MAGIC);
+                    footer.flip();
+                    while (footer.hasRemaining()) channel.write(footer);
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    // Counts every "#\w+" match in the text without creating a Matcher or a String per match
+    static void countHashtags(CharSequence text, HashtagSink counter) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (text.charAt(i) == '#' && i + 1 < length && isWordChar(text.charAt(i + 1))) {
+                int end = i + 2;
+                while (end < length && isWordChar(text.charAt(end))) end++;
+                counter.add(text, i, end);
+                i = end; // Like Matcher.find, continue after the match
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // Same scan over UTF-8 bytes; bytes of multi-byte characters are never ASCII, so only ASCII bytes can be part of a hashtag
+    static void countHashtags(byte[] utf8, int from, int to, HashtagCounter counter) {
+        int i = from;
+        while (i < to) {
+            if (utf8[i] == '#' && i + 1 < to && isWordChar((char) utf8[i + 1])) {
+                int end = i + 2;
+                while (end < to && isWordChar((char) utf8[end])) end++;
+                counter.add(utf8, i, end);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // Same scan over a buffer such as a mapped block, with absolute reads so the bytes are never copied out
+    static void countHashtags(ByteBuffer utf8, int from, int to, HashtagCounter counter) {
+        int i = from;
+        while (i < to) {
+            if (utf8.get(i) == '#' && i + 1 < to && isWordChar((char) utf8.get(i + 1))) {
+                int end = i + 2;
+                while (end < to && isWordChar((char) utf8.get(end))) end++;
+                counter.add(utf8, i, end);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // The \w class of java.util.regex without UNICODE_CHARACTER_CLASS: [a-zA-Z_0-9]
+    static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // Times the regex path and the hand-written scanner over the same generated tweets
+    static void tokenizerBenchmark(int tweetCount) {
+        Random random = new Random(11);
+        String[] texts = new String[tweetCount];
+        for (int t = 0; t < tweetCount; t++) {
+            StringBuilder text = new StringBuilder("Posting an update about the day ");
+            for (int h = random.nextInt(4); h >= 0; h--) {
+                text.append("#Tag").append(random.nextInt(5000)).append(h % 2 == 0 ? " and " : ", ");
+            }
+            texts[t] = text.toString();
+        }
+
+        for (int round = 0; round < 5; round++) { // The first rounds warm up the JIT
+            long start = System.nanoTime();
+            HashtagCounter regexCounts = new HashtagCounter();
+            Pattern hashtagPattern = Pattern.compile("#\\w+");
+            for (String text : texts) {
+                Matcher matcher = hashtagPattern.matcher(text);
+                while (matcher.find()) regexCounts.add(matcher.group());
+            }
+            double regexMs = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            HashtagCounter scannerCounts = new HashtagCounter();
+            for (String text : texts) countHashtags(text, scannerCounts);
+            double scannerMs = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("round %d: regex %.1f ms, scanner %.1f ms, same top 3: %b%n", round, regexMs, scannerMs,
+                regexCounts.topK(3).toString().equals(scannerCounts.topK(3).toString()));
+        }
+    }
+
+    // Streaming version over a file with one tab-separated tweet per line
+    public static List<HashtagCount> findTopTrendingHashtags(Path file, int k) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return findTopTrendingHashtags(readTweets(reader), k);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Lazily parses lines of the form userId<TAB>tweetId<TAB>date<TAB>text
+    static Iterator<Tweet> readTweets(BufferedReader reader) {
+        return new Iterator<Tweet>() {
+            private String line = nextLine();
+
+            private String nextLine() {
+                try {
+                    String next = reader.readLine();
+                    while (next != null && next.isEmpty()) next = reader.readLine(); // Skip blank lines
+                    return next;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return line != null;
+            }
+
+            @Override
+            public Tweet next() {
+                if (line == null) throw new NoSuchElementException();
+                String[] fields = line.split("\t", 4);
+                if (fields.length < 4) throw new IllegalArgumentException("Expected 4 tab-separated fields in: " + line);
+                Tweet tweet = new Tweet(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), fields[3], fields[2]);
+                line = nextLine();
+                return tweet;
+            }
+        };
+    }
+
+    // Prints hashtags in the same table layout as findTopTrendingHashtags
+    static void printTable(List<HashtagCount> hashtags) {
+        System.out.println("+------------+-------+");
+        System.out.println("| hashtag    | count |");
+        System.out.println("+------------+-------+");
+        for (HashtagCount entry : hashtags) {
+            System.out.printf("| %-10s | %5d |\n", entry.hashtag, entry.count);
+        }
+        System.out.println("+------------+-------+");
+    }
+
+    // A hashtag and how many times it was used
+    static final class HashtagCount {
+        final String hashtag;
+        final int count;
+
+        HashtagCount(String hashtag, int count) {
+            this.hashtag = hashtag;
+            this.count = count;
+        }
+
+        // Trending order: higher count first, then alphabetical
+        static int compare(String hashtagA, int countA, String hashtagB, int countB) {
+            return countA != countB ? Integer.compare(countB, countA) : hashtagA.compareTo(hashtagB);
+        }
+
+        @Override
+        public String toString() {
+            return hashtag + "=" + count;
+        }
+    }
+
+    // Trending hashtags over a sliding time window with bounded memory
+    static final class WindowedTrending {
+        private final long slideSeconds;
+        private final Bucket[] buckets; // Ring of the buckets in the current window
+        private final int width;
+        private final int depth;
+        private final int capacity;
+        private final boolean exact;
+        private long newestBucket = Long.MIN_VALUE;
+        private long lateHashtags; // Hashtags that arrived after their bucket left the window
+
+        WindowedTrending(Duration window, Duration slide, int width, int depth, int capacity, boolean exact) {
+            if (slide.getSeconds() <= 0 || window.getSeconds() % slide.getSeconds() != 0) {
+                throw new IllegalArgumentException("The window " + window + " must be a whole number of slides of " + slide);
+            }
+            if (Integer.bitCount(width) != 1) {
+                throw new IllegalArgumentException("The sketch width must be a power of two, not " + width);
+            }
+            this.slideSeconds = slide.getSeconds();
+            this.buckets = new Bucket[(int) (window.getSeconds() / slideSeconds)];
+            this.width = width;
+            this.depth = depth;
+            this.capacity = capacity;
+            this.exact = exact;
+            for (int b = 0; b < buckets.length; b++) {
+                buckets[b] = new Bucket();
+            }
+        }
+
+        // Count the hashtags of a tweet; dates are yyyy-MM-dd or an ISO date-time, in UTC
+        void add(Tweet tweet) {
+            add(epochSecond(tweet.date), tweet.text);
+        }
+
+        // Count the hashtags of a text posted at the given time
+        void add(long epochSecond, CharSequence text) {
+            long bucketId = Math.floorDiv(epochSecond, slideSeconds);
+            advanceTo(bucketId);
+            if (bucketId <= newestBucket - buckets.length) {
+                // Too old for the window, count how much is dropped
+                HashtagCounter late = new HashtagCounter();
+                countHashtags(text, late);
+                lateHashtags += late.total();
+                return;
+            }
+            countHashtags(text, buckets[(int) Math.floorMod(bucketId, (long) buckets.length)]);
+        }
+
+        // Move the window forward so it ends with the given bucket, clearing the buckets that fall out
+        void advanceTo(long bucketId) {
+            if (newestBucket == Long.MIN_VALUE) {
+                newestBucket = bucketId;
+                return;
+            }
+            if (bucketId <= newestBucket) return;
+            long steps = Math.min(bucketId - newestBucket, buckets.length);
+            for (long b = bucketId - steps + 1; b <= bucketId; b++) {
+                buckets[(int) Math.floorMod(b, (long) buckets.length)].clear();
+            }
+            newestBucket = bucketId;
+        }
+
+        // Estimated top k of the current window, each with its error bound
+        List<TrendingEstimate> topK(int k) {
+            long total = 0;
+            Set<String> candidates = new HashSet<>();
+            for (Bucket bucket : buckets) {
+                total += bucket.total;
+                for (int i = 0; i < bucket.monitored; i++) candidates.add(bucket.keys[i]);
+            }
+
+            HashtagCounter exactCounts = exact ? exactCounts() : null;
+            long errorBound = (long) Math.ceil(Math.E / width * total);
+            double confidence = 1 - Math.exp(-depth);
+            List<TrendingEstimate> result = new ArrayList<>();
+            for (String hashtag : candidates) {
+                long estimate = estimate(hashtag);
+                result.add(new TrendingEstimate(hashtag, estimate, errorBound, confidence,
+                    exactCounts == null ? -1 : exactCounts.get(hashtag)));
+            }
+            result.sort((a, b) -> a.estimate != b.estimate ? Long.compare(b.estimate, a.estimate) : a.hashtag.compareTo(b.hashtag));
+            return result.subList(0, Math.min(k, result.size()));
+        }
+
+        // Exact top k of the current window, only available in exact mode
+        List<HashtagCount> exactTopK(int k) {
+            if (!exact) throw new IllegalStateException("Exact counts are only kept in exact mode");
+            return exactCounts().topK(k);
+        }
+
+        // Hashtags dropped because they were older than the window
+        long lateHashtags() {
+            return lateHashtags;
+        }
+
+        // Smallest row sum over all buckets
+        long estimate(String hashtag) {
+            long hash = sketchHash(hashtag, 0, hashtag.length());
+            long best = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                int column = column(hash, row);
+                long sum = 0;
+                for (Bucket bucket : buckets) sum += bucket.sketch[row][column];
+                best = Math.min(best, sum);
+            }
+            return best;
+        }
+
+        private HashtagCounter exactCounts() {
+            HashtagCounter merged = new HashtagCounter();
+            for (Bucket bucket : buckets) bucket.exactCounts.addAll(merged);
+            return merged;
+        }
+
+        private static final long SKETCH_SEED = 0x2545F4914F6CDD1DL;
+
+        // Seeded 64-bit hash of text[start, end): FNV-1a over the chars, then the MurmurHash3 finalizer
+        static long sketchHash(CharSequence text, int start, int end) {
+            long hash = SKETCH_SEED;
+            for (int i = start; i < end; i++) hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+            hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+            hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return hash ^ (hash >>> 33);
+        }
+
+        // Column of the hash in the given row by double hashing with the two halves; the odd step reaches every column
+        private int column(long hash, int row) {
+            return ((int) (hash >>> 32) + row * ((int) hash | 1)) & (width - 1);
+        }
+
+        // Counts of one slide: a Count-Min sketch, a Space-Saving list and, in exact mode, every count
+        private final class Bucket implements HashtagSink {
+            final int[][] sketch = new int[depth][width];
+            final String[] keys = new String[capacity];
+            final long[] counts = new long[capacity];
+            final long[] hashes = new long[capacity];
+            // Slot + 1 of each monitored hashtag by hash, linear probing, 0 is empty
+            final int[] index = new int[Integer.highestOneBit(Math.max(1, capacity)) * 4];
+            // Slots as a min-heap on counts, with the heap position of each slot
+            final int[] heap = new int[capacity];
+            final int[] heapPosition = new int[capacity];
+            int monitored;
+            long total;
+            HashtagCounter exactCounts = new HashtagCounter();
+
+            @Override
+            public void add(CharSequence text, int start, int end) {
+                long hash = sketchHash(text, start, end);
+                for (int row = 0; row < depth; row++) sketch[row][column(hash, row)]++;
+                total++;
+                if (exact) exactCounts.add(text, start, end);
+                if (capacity == 0) return;
+
+                // Space-Saving: count a monitored hashtag, fill a free slot, or take over the smallest slot
+                int mask = index.length - 1;
+                int at = (int) hash & mask;
+                while (index[at] != 0) {
+                    int slot = index[at] - 1;
+                    if (hashes[slot] == hash && HashtagCounter.matches(keys[slot], text, start, end)) {
+                        counts[slot]++;
+                        siftDown(heapPosition[slot]);
+                        return;
+                    }
+                    at = (at + 1) & mask;
+                }
+                int slot;
+                if (monitored < capacity) {
+                    slot = monitored++;
+                    keys[slot] = text.subSequence(start, end).toString();
+                    hashes[slot] = hash;
+                    counts[slot] = 1;
+                    index[at] = slot + 1;
+                    siftUp(slot); // Count 1 is the smallest count, so the new slot rises to the top
+                    return;
+                } else {
+                    slot = heap[0];
+                    unindex(slot);
+                    at = (int) hash & mask;
+                    while (index[at] != 0) at = (at + 1) & mask;
+                }
+                keys[slot] = text.subSequence(start, end).toString();
+                hashes[slot] = hash;
+                counts[slot]++;
+                index[at] = slot + 1;
+                siftDown(heapPosition[slot]);
+            }
+
+            // Remove a slot from the index, shifting later entries of its probe run back
+            private void unindex(int slot) {
+                int mask = index.length - 1;
+                int hole = (int) hashes[slot] & mask;
+                while (index[hole] != slot + 1) hole = (hole + 1) & mask;
+                for (int at = (hole + 1) & mask; index[at] != 0; at = (at + 1) & mask) {
+                    int home = (int) hashes[index[at] - 1] & mask;
+                    if (((at - home) & mask) >= ((at - hole) & mask)) {
+                        index[hole] = index[at];
+                        hole = at;
+                    }
+                }
+                index[hole] = 0;
+            }
+
+            // A new slot starts at the end of the heap and moves up past larger counts
+            private void siftUp(int slot) {
+                int position = slot;
+                while (position > 0) {
+                    int parent = (position - 1) / 2;
+                    if (counts[heap[parent]] <= counts[slot]) break;
+                    heap[position] = heap[parent];
+                    heapPosition[heap[position]] = position;
+                    position = parent;
+                }
+                heap[position] = slot;
+                heapPosition[slot] = position;
+            }
+
+            // Counts only grow, so a monitored slot can only move down
+            private void siftDown(int position) {
+                int slot = heap[position];
+                while (2 * position + 1 < monitored) {
+                    int child = 2 * position + 1;
+                    if (child + 1 < monitored && counts[heap[child + 1]] < counts[heap[child]]) child++;
+                    if (counts[heap[child]] >= counts[slot]) break;
+                    heap[position] = heap[child];
+                    heapPosition[heap[position]] = position;
+                    position = child;
+                }
+                heap[position] = slot;
+                heapPosition[slot] = position;
+            }
+
+            void clear() {
+                for (int[] row : sketch) Arrays.fill(row, 0);
+                Arrays.fill(keys, null);
+                Arrays.fill(counts, 0);
+                Arrays.fill(index, 0);
+                monitored = 0;
+                total = 0;
+                if (exact) exactCounts = new HashtagCounter();
+            }
+        }
+    }
+
+    // Estimated window count of a hashtag: the true count is in [estimate - errorBound, estimate] with the given confidence
+    static final class TrendingEstimate {
+        final String hashtag;
+        final long estimate;
+        final long errorBound;
+        final double confidence;
+        final int exactCount; // -1 unless the engine runs in exact mode
+
+        TrendingEstimate(String hashtag, long estimate, long errorBound, double confidence, int exactCount) {
+            this.hashtag = hashtag;
+            this.estimate = estimate;
+            this.errorBound = errorBound;
+            this.confidence = confidence;
+            this.exactCount = exactCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s=%d (-%d at %.1f%%)%s", hashtag, estimate, errorBound, confidence * 100,
+                exactCount < 0 ? "" : " exact " + exactCount);
+        }
+    }
+
+    // Seconds since the epoch for yyyy-MM-dd (start of the day), yyyy-MM-ddTHH:mm[:ss] or an ISO instant, all in UTC
+    static long epochSecond(String date) {
+        if (date.length() == 10) return LocalDate.parse(date).toEpochDay() * 86400L;
+        if (date.endsWith("Z")) return Instant.parse(date).getEpochSecond();
+        return LocalDateTime.parse(date).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // Receives the hashtags found by countHashtags as spans of the scanned text
+    interface HashtagSink {
+        void add(CharSequence text, int start, int end);
+    }
+
+    // Open-addressing hash table from hashtag to an int count, with linear probing
+    static final class HashtagCounter implements HashtagSink {
+        private String[] keys = new String[64];
+        private int[] counts = new int[64];
+        private int size;
+
+        // Add one use of the hashtag
+        void add(String hashtag) {
+            add(hashtag, 1);
+        }
+
+        // Add one use of the hashtag text[start, end), the String is only created for a new hashtag
+        @Override
+        public void add(CharSequence text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) hash = 31 * hash + text.charAt(i); // Same as String.hashCode
+            int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], text, start, end)) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = text.subSequence(start, end).toString();
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) resize();
+        }
+
+        // Add one use of the ASCII hashtag utf8[start, end)
+        void add(byte[] utf8, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) hash = 31 * hash + utf8[i];
+            int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], utf8, start, end)) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = new String(utf8, start, end - start, StandardCharsets.US_ASCII);
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) resize();
+        }
+
+        // Add one use of the ASCII hashtag in utf8[start, end), the bytes are only copied for a new hashtag
+        void add(ByteBuffer utf8, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) hash = 31 * hash + utf8.get(i);
+            int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], utf8, start, end)) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] hashtag = new byte[end - start];
+            utf8.get(start, hashtag);
+            keys[slot] = new String(hashtag, StandardCharsets.US_ASCII);
+            counts[slot] = 1;
+            if (++size * 2 > keys.length) resize();
+        }
+
+        private static boolean matches(String key, CharSequence text, int start, int end) {
+            if (key.length() != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (key.charAt(i - start) != text.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private static boolean matches(String key, byte[] utf8, int start, int end) {
+            if (key.length() != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (key.charAt(i - start) != utf8[i]) return false;
+            }
+            return true;
+        }
+
+        private static boolean matches(String key, ByteBuffer utf8, int start, int end) {
+            if (key.length() != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (key.charAt(i - start) != utf8.get(i)) return false;
+            }
+            return true;
+        }
+
+        void add(String hashtag, int amount) {
+            int mask = keys.length - 1;
+            int slot = mix(hashtag.hashCode()) & mask;
+            while (keys[slot] != null) {
+                if (keys[slot].equals(hashtag)) {
+                    counts[slot] += amount;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = hashtag;
+            counts[slot] = amount;
+            if (++size * 2 > keys.length) resize(); // Keep the table at most half full so probe runs stay short
+        }
+
+        int get(String hashtag) {
+            int mask = keys.length - 1;
+            int slot = mix(hashtag.hashCode()) & mask;
+            while (keys[slot] != null) {
+                if (keys[slot].equals(hashtag)) return counts[slot];
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Write the counts as the number of hashtags followed by (hashtag, count) pairs
+        void writeTo(DataOutput out) throws IOException {
+            out.writeInt(size);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) {
+                    out.writeUTF(keys[slot]);
+                    out.writeInt(counts[slot]);
+                }
+            }
+        }
+
+        // Read counts written by writeTo
+        static HashtagCounter readFrom(DataInput in) throws IOException {
+            HashtagCounter counter = new HashtagCounter();
+            for (int i = in.readInt(); i > 0; i--) {
+                String hashtag = in.readUTF();
+                counter.add(hashtag, in.readInt());
+            }
+            return counter;
+        }
+
+        // Sum of all counts
+        long total() {
+            long total = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) total += counts[slot];
+            }
+            return total;
+        }
+
+        // Add every count of this table to target
+        void addAll(HashtagCounter target) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) target.add(keys[slot], counts[slot]);
+            }
+        }
+
+        // Best k hashtags in trending order, using a heap of at most k entries
+        List<HashtagCount> topK(int k) {
+            // The heap head is the worst of the kept hashtags, so it is the one to replace
+            PriorityQueue<HashtagCount> heap = new PriorityQueue<>(Math.max(1, k),
+                (a, b) -> HashtagCount.compare(b.hashtag, b.count, a.hashtag, a.count));
+            for (int slot = 0; slot < keys.length && k > 0; slot++) {
+                if (keys[slot] == null) continue;
+                if (heap.size() < k) {
+                    heap.add(new HashtagCount(keys[slot], counts[slot]));
+                } else if (HashtagCount.compare(keys[slot], counts[slot], heap.peek().hashtag, heap.peek().count) < 0) {
+                    heap.poll();
+                    heap.add(new HashtagCount(keys[slot], counts[slot]));
+                }
+            }
+            List<HashtagCount> result = new ArrayList<>(heap);
+            result.sort((a, b) -> HashtagCount.compare(a.hashtag, a.count, b.hashtag, b.count));
+            return result;
+        }
+
+        private void resize() {
+            String[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new String[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) continue;
+                int slot = mix(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        // Spread the hash bits so similar hashtags do not cluster in neighbouring slots
+        static int mix(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
     }
 
     public static void findTopTrendingHashtags(List<Tweet> tweets) {
@@ -85,3 +1222,13 @@ class Tweet {
 // | #HappyDay  |     3 |
 // | #TechLife  |     2 |
 // | #FeelGood  |     1 |
+// (the streaming pipeline prints the same table twice more, once from the Iterator and once from the file)
+// Scanner matches the regex: true
+// Window ending 2024-02-09, estimated: [#HappyDay=2 (-1 at 99.3%) exact 2, #TechLife=2 (-1 at 99.3%) exact 2, #FeelGood=1 (-1 at 99.3%) exact 1]
+// Window ending 2024-02-09, exact: [#HappyDay=2, #TechLife=2, #FeelGood=1]
+// Colliding String hashes: [#Aa=100 (-1 at 99.3%) exact 100, #BB=1 (-1 at 99.3%) exact 1]
+// Capacity 2: [#A=5 (-1 at 99.3%) exact 5, #C=1 (-1 at 99.3%) exact 1], heavy hitters kept: true
+// Parallel top 3: [#HappyDay=3, #TechLife=2, #FeelGood=1]
+// Merged partial counts: [#HappyDay=3, #TechLife=2, #FeelGood=1]
+// Store top 3: [#HappyDay=3, #TechLife=2, #FeelGood=1], blocks read 4 of 5
+// Corrupt footer refused: true